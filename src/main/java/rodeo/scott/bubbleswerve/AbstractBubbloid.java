@@ -1,8 +1,4 @@
 package rodeo.scott.bubbleswerve;
-import java.awt.Color;
-import java.awt.Graphics;
-import java.awt.Point;
-import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -13,9 +9,8 @@ import java.util.List;
  * @author https://scott.rodeo/
  */
 public abstract class AbstractBubbloid {
-    private static final long serialVersionUID = 1L;
 
-    protected int row, col;  // Current position of the Bubbloid in the grid.
+    protected int row, col;  // Current position of the Bubbloid's pivot bubble in the grid.
 
     public AbstractBubbloid() {
         this.row = 0;      // Default initial row.
@@ -25,6 +20,8 @@ public abstract class AbstractBubbloid {
     private boolean ableToMove;            // Indicates if this Bubbloid can move.
     protected List<Bubble> bubble;         // List of individual bubbles making up this piece.
     private Grid grid;                     // Reference to the game grid.
+    private BubbloidShape shape;           // Precomputed rotation states of this piece.
+    private int rotation;                  // Current rotation state (0 to 3).
 
     /**
      * Constructs a new Bubbloid piece.
@@ -32,20 +29,23 @@ public abstract class AbstractBubbloid {
      * @param initialRow   The starting row position for the piece.
      * @param initialColumn The starting column position for the piece.
      * @param gridin       The game grid where the piece resides.
-     * @param color        The color of the piece.
-     * @param rowOffset    Array specifying row offsets for the bubbles.
-     * @param colOffset    Array specifying column offsets for the bubbles.
+     * @param color        The palette index of the piece's color.
+     * @param shape        The rotation states compiled from the piece's offsets.
      */
-    public AbstractBubbloid(int initialRow, int initialColumn, Grid gridin, Color color, int[] rowOffset, int[] colOffset) {
+    public AbstractBubbloid(int initialRow, int initialColumn, Grid gridin, int color, BubbloidShape shape) {
         grid = gridin;
         bubble = new ArrayList<>();
         ableToMove = true;
+        this.shape = shape;
+        rotation = 0;
 
-        // Initialize bubbles based on offsets.
-        for (int i = 0; i < rowOffset.length; i++) {
-            if (rowOffset[i] != 9) { // Offset value of 9 indicates no bubble at this index.
-                bubble.add(new Bubble(gridin, initialRow + rowOffset[i], initialColumn + colOffset[i], color, true));
-            }
+        // Position the pivot bubble.
+        row = initialRow + shape.getPivotRow();
+        col = initialColumn + shape.getPivotCol();
+
+        // Initialize bubbles from the spawn rotation state.
+        for (int i = 0; i < shape.size(); i++) {
+            bubble.add(new Bubble(gridin, row + shape.getRowOffset(0, i), col + shape.getColOffset(0, i), color, true));
         }
     }
 
@@ -69,37 +69,77 @@ public abstract class AbstractBubbloid {
     }
 
     /**
-     * Draws the Bubbloid on the given Graphics context.
+     * Gets the precomputed rotation states of this piece.
      * 
-     * @param g The Graphics object used for rendering.
+     * @return The compiled shape.
      */
-    public void draw(Graphics g) {
-        for (Bubble sq : bubble) {
-            sq.draw(g);
-        }
+    public BubbloidShape getShape() {
+        return shape;
     }
 
     /**
-     * Returns an array of the rotated coordinates for the bubbles.
-     * The rotation is centered on the second bubble (index 1) in the list.
+     * Gets the current rotation state.
      * 
-     * @return A 2D array containing the rotated x, y coordinates.
+     * @return The rotation state (0 to 3).
      */
-    public int[][] getRotatedCoords() {
-        int originX = bubble.get(1).getCol(); // Pivot column.
-        int originY = bubble.get(1).getRow(); // Pivot row.
-        int[][] rotatedCoords = new int[bubble.size()][2];
+    public int getRotation() {
+        return rotation;
+    }
 
-        for (int i = 0; i < bubble.size(); i++) {
-            int squareCartX = bubble.get(i).getCol() - originX; // Cartesian x.
-            int squareCartY = bubble.get(i).getRow() - originY; // Cartesian y.
+    /**
+     * Gets the row of the pivot bubble.
+     * 
+     * @return The pivot row.
+     */
+    public int getPivotRow() {
+        return row;
+    }
+
+    /**
+     * Gets the column of the pivot bubble.
+     * 
+     * @return The pivot column.
+     */
+    public int getPivotCol() {
+        return col;
+    }
 
-            // Apply rotation transformation.
-            rotatedCoords[i][0] = originX - squareCartY; // New x.
-            rotatedCoords[i][1] = originY + squareCartX; // New y.
+    /**
+     * Returns the Bubbloid to the state it was built in, with its pivot at the top left corner
+     * of a grid, reusing its bubbles. Used by BubbloidPool.
+     * 
+     * @param gridin The game grid where the piece will reside.
+     */
+    void reset(Grid gridin) {
+        grid = gridin;
+        ableToMove = true;
+        for (int i = 0; i < bubble.size(); i++) {
+            bubble.get(i).reset(gridin);
         }
+        place(0, shape.getPivotRow(), shape.getPivotCol());
+    }
 
-        return rotatedCoords;
+    /**
+     * Puts the Bubbloid at a saved position and rotation state, without checking for collisions.
+     * 
+     * @param rotation The rotation state (0 to 3).
+     * @param row      The row of the pivot bubble.
+     * @param col      The column of the pivot bubble.
+     */
+    void place(int rotation, int row, int col) {
+        this.rotation = rotation & 3;
+        this.row = row;
+        this.col = col;
+        placeBubbles();
+    }
+
+    /**
+     * Moves the bubbles to the cells given by the pivot position and rotation state.
+     */
+    private void placeBubbles() {
+        for (int i = 0; i < bubble.size(); i++) {
+            bubble.get(i).rotate(col + shape.getColOffset(rotation, i), row + shape.getRowOffset(rotation, i));
+        }
     }
 
     /**
@@ -110,25 +150,27 @@ public abstract class AbstractBubbloid {
      * @return True if any bubble overlaps the given position, false otherwise.
      */
     public boolean intersects(int x, int y) {
-        for (Bubble bubble : this.bubble) {
-            if (bubble.getCol() == x && bubble.getRow() == y) {
-                return true;
-            }
+        int dr = y - row;
+        int dc = x - col;
+
+        // Quick rejection outside the bounding box of the current rotation state.
+        if (dr < shape.getMinRow(rotation) || dr > shape.getMaxRow(rotation)
+                || dc < shape.getMinCol(rotation) || dc > shape.getMaxCol(rotation)) {
+            return false;
         }
-        return false;
+        return (shape.getRowMask(rotation, dr - shape.getMinRow(rotation)) & (1L << (dc - shape.getMinCol(rotation)))) != 0;
     }
 
     /**
-     * Rotates the Bubbloid, if the rotation is valid.
+     * Rotates the Bubbloid around its pivot, if the rotation is valid.
      * 
-     * @param clockDirection Rotation direction (0 for clockwise).
+     * @param clockDirection Rotation direction (0 for clockwise, 1 for counterclockwise).
      */
     public void rotate(int clockDirection) {
-        int[][] coords = getRotatedCoords(); // Calculate new coordinates.
-        if (canRotate(coords)) { // Check if rotation is valid.
-            for (int i = 0; i < bubble.size(); i++) {
-                bubble.get(i).rotate(coords[i][0], coords[i][1]);
-            }
+        int next = (clockDirection == 0) ? (rotation + 1) & 3 : (rotation + 3) & 3; // Next state.
+        if (canRotate(next)) { // Check if rotation is valid.
+            rotation = next;
+            placeBubbles();
         }
     }
 
@@ -140,34 +182,116 @@ public abstract class AbstractBubbloid {
      */
     public void move(Direction direction) {
         if (canMove(direction)) {
-            for (Bubble sq : bubble) {
-                sq.move(direction);
+            switch (direction) {
+                case DOWN:
+                    row++;
+                    break;
+                case UP:
+                    row--;
+                    break;
+                case LEFT:
+                    col--;
+                    break;
+                case RIGHT:
+                    col++;
+                    break;
             }
+            placeBubbles();
         } else if (direction == Direction.DOWN) {
             ableToMove = false;
         }
     }
 
     /**
-     * Retrieves the grid coordinates occupied by the Bubbloid.
+     * Moves the Bubbloid several cells at once without checking for collisions.
+     * Used for hard drops, where the distance comes from getDropDistance().
      * 
-     * @return Array of Points representing occupied grid cells.
+     * @param direction The direction to move.
+     * @param distance  The number of cells to move.
      */
-    public Point[] getLocations() {
-        Point[] points = new Point[bubble.size()];
-        for (int i = 0; i < bubble.size(); i++) {
-            points[i] = new Point(bubble.get(i).getCol(), bubble.get(i).getRow());
+    public void drop(Direction direction, int distance) {
+        switch (direction) {
+            case DOWN:
+                row += distance;
+                break;
+            case UP:
+                row -= distance;
+                break;
+            case LEFT:
+                col -= distance;
+                break;
+            case RIGHT:
+                col += distance;
+                break;
+        }
+        placeBubbles();
+    }
+
+    /**
+     * Computes how far the Bubbloid can fall in the direction of gravity before landing,
+     * from the grid's column words rather than by trying one step at a time.
+     * 
+     * @return The number of cells the piece can drop.
+     */
+    public int getDropDistance() {
+        int distance = Integer.MAX_VALUE;
+        for (int i = 0; i < shape.size(); i++) {
+            distance = Math.min(distance, grid.dropDistance(getCellRow(i), getCellCol(i)));
+        }
+        return distance;
+    }
+
+    /**
+     * Gets the number of grid cells occupied by the Bubbloid.
+     * 
+     * @return The number of bubbles in the piece.
+     */
+    public int getCellCount() {
+        return shape.size();
+    }
+
+    /**
+     * Gets the row of one of the cells occupied by the Bubbloid, without allocating.
+     * 
+     * @param i Index of the bubble, from 0 to getCellCount() - 1.
+     * @return The grid row of the bubble.
+     */
+    public int getCellRow(int i) {
+        return row + shape.getRowOffset(rotation, i);
+    }
+
+    /**
+     * Gets the column of one of the cells occupied by the Bubbloid, without allocating.
+     * 
+     * @param i Index of the bubble, from 0 to getCellCount() - 1.
+     * @return The grid column of the bubble.
+     */
+    public int getCellCol(int i) {
+        return col + shape.getColOffset(rotation, i);
+    }
+
+    /**
+     * Writes the grid coordinates occupied by the Bubbloid into caller-supplied buffers.
+     * 
+     * @param rows Buffer receiving the row of each bubble; at least getCellCount() long.
+     * @param cols Buffer receiving the column of each bubble; at least getCellCount() long.
+     * @return The number of cells written.
+     */
+    public int getLocations(int[] rows, int[] cols) {
+        for (int i = 0; i < shape.size(); i++) {
+            rows[i] = row + shape.getRowOffset(rotation, i);
+            cols[i] = col + shape.getColOffset(rotation, i);
         }
-        return points;
+        return shape.size();
     }
 
     /**
      * Gets the color of the Bubbloid.
      * Assumes all bubbles share the same color.
      * 
-     * @return The color of the Bubbloid.
+     * @return The palette index of the Bubbloid's color.
      */
-    public Color getColor() {
+    public int getColor() {
         return bubble.get(0).getColor();
     }
 
@@ -178,52 +302,59 @@ public abstract class AbstractBubbloid {
      * @return True if the move is valid, false otherwise.
      */
     public boolean canMove(Direction direction) {
-        for (Bubble square : getBubbles()) {
-            int newRow = square.getRow();
-            int newCol = square.getCol();
+        int newRow = row;
+        int newCol = col;
 
-            switch (direction) {
-                case DOWN:
-                    newRow++;
-                    break;
-                case UP:
-                    newRow--;
-                    break;
-                case LEFT:
-                    newCol--;
-                    break;
-                case RIGHT:
-                    newCol++;
-                    break;
-            }
-
-            if (!grid.isValidAndEmpty(newRow, newCol)) {
-                return false;
-            }
+        switch (direction) {
+            case DOWN:
+                newRow++;
+                break;
+            case UP:
+                newRow--;
+                break;
+            case LEFT:
+                newCol--;
+                break;
+            case RIGHT:
+                newCol++;
+                break;
         }
-        return true;
+
+        return fits(rotation, newRow, newCol);
     }
 
     /**
-     * Determines if the Bubbloid can rotate to the specified coordinates.
+     * Determines if the Bubbloid can rotate to the specified rotation state.
      * 
-     * @param coords The target coordinates for rotation.
+     * @param rotation The target rotation state (0 to 3).
      * @return True if the rotation is valid, false otherwise.
      */
-    public boolean canRotate(int[][] coords) {
-        if (coords.length != bubble.size()) {
-            throw new IllegalArgumentException("Mismatch between coordinates and bubbles.");
-        }
+    public boolean canRotate(int rotation) {
+        return fits(rotation, row, col);
+    }
 
-        for (int i = 0; i < coords.length; i++) {
-            int x = coords[i][0];
-            int y = coords[i][1];
+    /**
+     * Determines if the Bubbloid would fit on the grid in a given rotation state and position.
+     * 
+     * @param rotation The rotation state to test (0 to 3).
+     * @param row      The row of the pivot bubble.
+     * @param col      The column of the pivot bubble.
+     * @return True if every bubble lands on an empty cell inside the grid, false otherwise.
+     */
+    public boolean fits(int rotation, int row, int col) {
+        int top = row + shape.getMinRow(rotation);
+        int bottom = row + shape.getMaxRow(rotation);
+        int left = col + shape.getMinCol(rotation);
+        int right = col + shape.getMaxCol(rotation);
 
-            if (x < 0 || x >= grid.WIDTH || y < 0 || y >= grid.HEIGHT) {
-                return false;
-            }
+        // The bounding box must lie inside the grid.
+        if (top < 0 || bottom >= grid.HEIGHT || left < 0 || right >= grid.WIDTH) {
+            return false;
+        }
 
-            if (grid.isSet(y, x)) {
+        // One AND per row of the piece against the grid's occupancy.
+        for (int r = top; r <= bottom; r++) {
+            if ((grid.getRowBits(r) & (shape.getRowMask(rotation, r - top) << left)) != 0) {
                 return false;
             }
         }
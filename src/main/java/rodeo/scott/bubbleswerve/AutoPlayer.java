@@ -0,0 +1,392 @@
+package rodeo.scott.bubbleswerve;
+import java.util.stream.IntStream;
+
+/**
+ * Built-in computer player, for load tests and demos.
+ * When a new piece appears, the player tries every placement the piece can reach with the
+ * game's own controls: each of the four rotation states turned in place at the spawn position,
+ * then every position it can slide to across the direction of gravity, then a hard drop. Each
+ * landing is scored on the board it leaves behind, and the player then sends the rotations,
+ * moves and hard drop that lead to the best one, one command per step.
+ *
+ * Gravity always points to the floor of the grid's physical layout, so the search works on the
+ * lane words of that layout and is the same for every orientation of the board. A board is
+ * scored with a weighted sum of the stack height, cleared lines, holes and bumpiness.
+ *
+ * Different placements can leave the same board, such as the opposite rotation states of a
+ * symmetric piece, and so can different pieces. Given a TranspositionTable, the player caches
+ * scores under the Zobrist hash of the board a landing leaves, which is the grid's hash with
+ * the keys of the landed cells xored in, so each board is scored once; players can share one
+ * table. Scoring one board costs about as much as a lookup, so a player has no table unless
+ * it is given one.
+ *
+ * @author https://scott.rodeo/
+ */
+public class AutoPlayer implements InputPolicy {
+
+    // Board heuristic weights, tuned for Tetris-like stacking.
+    private static final double HEIGHT_WEIGHT = -0.510066;
+    private static final double LINES_WEIGHT = 0.760666;
+    private static final double HOLES_WEIGHT = -0.35663;
+    private static final double BUMPINESS_WEIGHT = -0.184483;
+    private static final double TOP_OUT_SCORE = -1e9;  // Score of a landing that reaches the top row and ends the game.
+    private static final int MAX_COMMANDS = 32;        // Commands for one piece before the player gives up and drops it.
+
+    /**
+     * A landing position of the active piece: its rotation state and pivot before the drop, in
+     * the coordinates of the view.
+     */
+    public static final class Placement {
+
+        private final int rotation;
+        private final int row;
+        private final int col;
+        private final double score;
+
+        Placement(int rotation, int row, int col, double score) {
+            this.rotation = rotation;
+            this.row = row;
+            this.col = col;
+            this.score = score;
+        }
+
+        public int getRotation() {
+            return rotation;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public int getCol() {
+            return col;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    private static final int PLY = 1;                  // Depth of the scores the player stores.
+
+    private final int interval;              // Steps between two commands.
+    private final TranspositionTable table;  // Scores of the boards seen, possibly shared; null for none.
+    private boolean parallel;                // Whether the rotation states are searched on several cores.
+    private long plannedFor = -1;            // Pieces dealt when the plan was made; pooled pieces are reused, so not the object.
+    private Placement plan;                  // Where the piece should land, or null if it cannot move.
+    private int commandsIssued;              // Commands sent for the current piece.
+
+    // Decision timings.
+    private long decisionCount;
+    private long totalDecisionNanos;
+    private long maxDecisionNanos;
+
+    /**
+     * Constructs a player that sends a command on every step.
+     */
+    public AutoPlayer() {
+        this(1);
+    }
+
+    /**
+     * Constructs a player that sends a command every few steps, to play at a watchable pace.
+     *
+     * @param interval The number of steps between two commands.
+     */
+    public AutoPlayer(int interval) {
+        this(interval, null);
+    }
+
+    /**
+     * Constructs a player that caches board scores in a given table, which other players and
+     * searches on other threads may share.
+     *
+     * @param interval The number of steps between two commands.
+     * @param table    The table of board scores, or null to score every board.
+     */
+    public AutoPlayer(int interval, TranspositionTable table) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Command interval must be positive: " + interval);
+        }
+        this.interval = interval;
+        this.table = table;
+    }
+
+    /**
+     * Spreads the search over the common fork-join pool, one task per rotation state. The
+     * search of a standard board takes microseconds, less than handing it to other threads
+     * costs, so this only pays off on large boards or with many pieces to compare.
+     *
+     * @param parallel True to search the rotation states in parallel.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    @Override
+    public Command next(Game game, long tick) {
+        AbstractBubbloid piece = game.piece;
+        if (game.isPaused || game.gameIsOver || piece == null || tick % interval != 0) {
+            return null;
+        }
+
+        long dealt = game.getPieceQueue().getDealt();
+        if (dealt != plannedFor) {
+            plannedFor = dealt;
+            commandsIssued = 0;
+            long start = System.nanoTime();
+            plan = findBest(game);
+            long duration = System.nanoTime() - start;
+            decisionCount++;
+            totalDecisionNanos += duration;
+            maxDecisionNanos = Math.max(maxDecisionNanos, duration);
+        }
+        if (plan == null || ++commandsIssued > MAX_COMMANDS) {
+            return Command.HARD_DROP;
+        }
+
+        // Rotate first: against gravity turns clockwise, one counterclockwise turn saves two.
+        Direction gravity = game.getGravity();
+        if (piece.getRotation() != plan.rotation) {
+            int turns = (plan.rotation - piece.getRotation()) & 3;
+            return turns == 3 ? Command.ROTATE_COUNTERCLOCKWISE : toCommand(opposite(gravity));
+        }
+
+        // Then slide across gravity, then drop.
+        boolean vertical = gravity == Direction.DOWN || gravity == Direction.UP;
+        int current = vertical ? piece.getPivotCol() : piece.getPivotRow();
+        int target = vertical ? plan.col : plan.row;
+        if (current < target) {
+            return vertical ? Command.RIGHT : Command.DOWN;
+        }
+        if (current > target) {
+            return vertical ? Command.LEFT : Command.UP;
+        }
+        return Command.HARD_DROP;
+    }
+
+    /**
+     * Searches every reachable placement of the game's active piece.
+     *
+     * @param game The game; read only.
+     * @return The best placement, or null if the piece cannot move at all.
+     */
+    public Placement findBest(Game game) {
+        AbstractBubbloid piece = game.piece;
+        if (piece == null) {
+            return null;
+        }
+        Grid grid = game.grid;
+        Direction gravity = game.getGravity();
+        boolean vertical = gravity == Direction.DOWN || gravity == Direction.UP;
+        int dr = vertical ? 0 : 1; // One step across gravity.
+        int dc = vertical ? 1 : 0;
+
+        if (parallel) {
+            return IntStream.range(0, BubbloidShape.ROTATIONS).parallel()
+                    .mapToObj(rotation -> searchRotation(grid, piece, rotation, dr, dc, table))
+                    .reduce(null, AutoPlayer::better);
+        }
+        Placement best = null;
+        for (int rotation = 0; rotation < BubbloidShape.ROTATIONS; rotation++) {
+            best = better(best, searchRotation(grid, piece, rotation, dr, dc, table));
+        }
+        return best;
+    }
+
+    // The better of two placements, either of which may be null
+    private static Placement better(Placement a, Placement b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return b.score > a.score ? b : a;
+    }
+
+    // Best placement in one rotation state, or null if the state cannot be reached
+    private static Placement searchRotation(Grid grid, AbstractBubbloid piece, int rotation, int dr, int dc, TranspositionTable table) {
+        int row = piece.getPivotRow();
+        int col = piece.getPivotCol();
+        int from = piece.getRotation();
+
+        // The piece turns in place, without kicks, so every state on the way must fit.
+        int turns = (rotation - from) & 3;
+        if (turns == 3) {
+            if (!piece.fits(rotation, row, col)) {
+                return null;
+            }
+        } else {
+            for (int t = 1; t <= turns; t++) {
+                if (!piece.fits((from + t) & 3, row, col)) {
+                    return null;
+                }
+            }
+            if (turns == 0 && !piece.fits(rotation, row, col)) {
+                return null;
+            }
+        }
+
+        long[] lanes = new long[grid.getLaneCount()];
+        Placement best = null;
+        for (int direction = 1; direction >= -1; direction -= 2) {
+            int start = direction == 1 ? 0 : 1; // The spawn position is tried once.
+            for (int step = start; piece.fits(rotation, row + dr * step * direction, col + dc * step * direction); step++) {
+                int r = row + dr * step * direction;
+                int c = col + dc * step * direction;
+                double score = evaluate(grid, piece.getShape(), rotation, r, c, lanes, table);
+                if (best == null || score > best.score) {
+                    best = new Placement(rotation, r, c, score);
+                }
+            }
+        }
+        return best;
+    }
+
+    // Scores the board left by dropping the piece from (row, col) in a rotation state
+    private static double evaluate(Grid grid, BubbloidShape shape, int rotation, int row, int col, long[] lanes, TranspositionTable table) {
+        int cells = shape.size();
+        int drop = Integer.MAX_VALUE;
+        for (int i = 0; i < cells; i++) {
+            drop = Math.min(drop, grid.dropDistance(row + shape.getRowOffset(rotation, i), col + shape.getColOffset(rotation, i)));
+        }
+
+        if (table == null) {
+            return score(grid, shape, rotation, row, col, drop, lanes);
+        }
+
+        // The board before clearing lines decides the board after, so it keys the score.
+        long key = grid.getHash();
+        for (int i = 0; i < cells; i++) {
+            int r = row + shape.getRowOffset(rotation, i);
+            int c = col + shape.getColOffset(rotation, i);
+            key ^= Zobrist.cell(grid.getDepth(r, c) + drop, grid.getLane(r, c));
+        }
+        double cached = table.get(key, PLY);
+        if (!Double.isNaN(cached)) {
+            return cached;
+        }
+        double score = score(grid, shape, rotation, row, col, drop, lanes);
+        table.put(key, PLY, score);
+        return score;
+    }
+
+    // Scores the board left by a piece landing 'drop' cells below (row, col), working on a copy of the lanes
+    private static double score(Grid grid, BubbloidShape shape, int rotation, int row, int col, int drop, long[] lanes) {
+        int cells = shape.size();
+
+        // Land the piece in a copy of the lanes; it falls along its lanes by the drop distance.
+        int laneCount = lanes.length;
+        for (int lane = 0; lane < laneCount; lane++) {
+            lanes[lane] = grid.getLaneBits(lane);
+        }
+        for (int i = 0; i < cells; i++) {
+            int r = row + shape.getRowOffset(rotation, i);
+            int c = col + shape.getColOffset(rotation, i);
+            lanes[grid.getLane(r, c)] |= 1L << (grid.getDepth(r, c) + drop);
+        }
+
+        // Clear the rows that are full across every lane.
+        int depth = grid.getLaneDepth();
+        long full = depth == Long.SIZE ? -1L : (1L << depth) - 1;
+        for (long word : lanes) {
+            full &= word;
+        }
+        int lines = Long.bitCount(full);
+        if (lines > 0) {
+            for (int lane = 0; lane < laneCount; lane++) {
+                long word = lanes[lane];
+                for (long rows = full; rows != 0; rows &= rows - 1) {
+                    int k = Long.numberOfTrailingZeros(rows);
+                    long below = k + 1 >= Long.SIZE ? 0 : word & (-1L << (k + 1));
+                    long above = word & ((1L << k) - 1);
+                    word = below | (above << 1); // Everything above row k falls by one.
+                }
+                lanes[lane] = word;
+            }
+        }
+
+        int totalHeight = 0;
+        int holes = 0;
+        int bumpiness = 0;
+        int previous = -1;
+        for (long word : lanes) {
+            if ((word & 1L) != 0) {
+                return TOP_OUT_SCORE; // The top row is reached: game over.
+            }
+            int height = word == 0 ? 0 : depth - Long.numberOfTrailingZeros(word);
+            totalHeight += height;
+            holes += height - Long.bitCount(word);
+            if (previous >= 0) {
+                bumpiness += Math.abs(height - previous);
+            }
+            previous = height;
+        }
+        return HEIGHT_WEIGHT * totalHeight + LINES_WEIGHT * lines + HOLES_WEIGHT * holes + BUMPINESS_WEIGHT * bumpiness;
+    }
+
+    // Arrow command pointing in a direction of the view
+    private static Command toCommand(Direction direction) {
+        switch (direction) {
+            case UP:
+                return Command.UP;
+            case LEFT:
+                return Command.LEFT;
+            case RIGHT:
+                return Command.RIGHT;
+            default:
+                return Command.DOWN;
+        }
+    }
+
+    // The direction opposite to another
+    private static Direction opposite(Direction direction) {
+        switch (direction) {
+            case UP:
+                return Direction.DOWN;
+            case LEFT:
+                return Direction.RIGHT;
+            case RIGHT:
+                return Direction.LEFT;
+            default:
+                return Direction.UP;
+        }
+    }
+
+    /**
+     * Gets the table the player caches board scores in.
+     *
+     * @return The transposition table, or null if the player has none.
+     */
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Gets the number of placement searches made.
+     *
+     * @return The decision count.
+     */
+    public long getDecisionCount() {
+        return decisionCount;
+    }
+
+    /**
+     * Gets the average time a placement search took.
+     *
+     * @return The average decision time in nanoseconds, 0 before the first decision.
+     */
+    public long getAverageDecisionNanos() {
+        return decisionCount == 0 ? 0 : totalDecisionNanos / decisionCount;
+    }
+
+    /**
+     * Gets the longest time a placement search took.
+     *
+     * @return The maximum decision time in nanoseconds.
+     */
+    public long getMaxDecisionNanos() {
+        return maxDecisionNanos;
+    }
+}
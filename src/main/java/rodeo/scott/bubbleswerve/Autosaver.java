@@ -0,0 +1,130 @@
+package rodeo.scott.bubbleswerve;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Saves a game to a file every few seconds of play, and whenever it is paused or ends.
+ * The state is copied with Game.saveState() on the loop thread, which costs one copy of the
+ * board; encoding and writing happen on a background thread, so neither the loop nor the
+ * Swing event dispatch thread ever waits for the disk. If the writer falls behind, only the
+ * newest state is written.
+ *
+ * @author https://scott.rodeo/
+ */
+public class Autosaver {
+
+    public static final int DEFAULT_INTERVAL_TICKS = 5 * GameLoop.TICKS_PER_SECOND; // Ticks between saves during play.
+
+    private final Game game;                                                    // The game being saved.
+    private final String path;                                                  // The save file.
+    private final int intervalTicks;                                            // Ticks between saves during play.
+    private final AtomicReference<GameState> pending = new AtomicReference<>(); // Newest state not yet written.
+    private final ExecutorService writer;                                       // Writes the pending state.
+    private long lastSaveTick;                                                  // Tick of the last save; loop thread only.
+    private boolean idleSaved;                                                  // True once a paused or finished game was saved.
+    private volatile long saveCount;                                            // States written so far.
+
+    /**
+     * Constructs an autosaver for a game with the default interval. It saves nothing until it
+     * is set on the game with Game.setAutosaver().
+     *
+     * @param game The game to save.
+     * @param path The save file; replaced by every save.
+     */
+    public Autosaver(Game game, String path) {
+        this(game, path, DEFAULT_INTERVAL_TICKS);
+    }
+
+    /**
+     * Constructs an autosaver for a game.
+     *
+     * @param game          The game to save.
+     * @param path          The save file; replaced by every save.
+     * @param intervalTicks The number of loop ticks between saves during play.
+     */
+    public Autosaver(Game game, String path, int intervalTicks) {
+        if (intervalTicks <= 0) {
+            throw new IllegalArgumentException("Autosave interval must be positive: " + intervalTicks);
+        }
+        this.game = game;
+        this.path = path;
+        this.intervalTicks = intervalTicks;
+        this.lastSaveTick = game.getLoop().getTick();
+        writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "bubbleswerve-autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Saves the game if a save is due. Called by the game on the loop thread once per tick.
+     *
+     * @param tick The current loop tick.
+     */
+    void tick(long tick) {
+        if (game.isPaused || game.isGameOver()) {
+            // One save when the game stops, none while it stays stopped.
+            if (!idleSaved) {
+                save();
+                idleSaved = true;
+            }
+            return;
+        }
+        idleSaved = false;
+        if (tick - lastSaveTick >= intervalTicks) {
+            save();
+        }
+    }
+
+    /**
+     * Copies the game's state and queues it for writing. Must be called on the loop thread, or
+     * while the loop is not running.
+     */
+    public void save() {
+        lastSaveTick = game.getLoop().getTick();
+        if (pending.getAndSet(game.saveState()) == null) {
+            writer.execute(this::writePending);
+        }
+    }
+
+    // Writes the newest queued state on the writer thread
+    private void writePending() {
+        GameState state = pending.getAndSet(null);
+        if (state == null) {
+            return;
+        }
+        try {
+            GameStateCodec.save(state, path);
+            saveCount++;
+        } catch (IOException e) {
+            System.out.println("Autosave failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the number of states written so far.
+     *
+     * @return The save count.
+     */
+    public long getSaveCount() {
+        return saveCount;
+    }
+
+    /**
+     * Writes the queued state, if any, and stops the writer thread.
+     */
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                System.out.println("Autosave did not finish writing " + path);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package rodeo.scott.bubbleswerve;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Command-line runner that plays many headless games at once and reports on them.
+ * Each game is stepped by hand on a worker of a fixed thread pool, as fast as the CPU allows,
+ * with its input coming from an InputPolicy. The runner prints the throughput of the batch
+ * and the spread of scores, levels, cleared lines and dealt pieces, which makes it the tool
+ * for tuning the power-up settings and the gravity curve.
+ *
+ * Game seeds are split from one master seed before any game starts, so a batch run with the
+ * same options plays exactly the same games however many threads it uses.
+ *
+ * Started with "--simulate" as the first argument of the Launcher.
+ *
+ * @author https://scott.rodeo/
+ */
+public class BatchSimulator {
+
+    private static final double RANDOM_INPUT_RATE = 0.2; // Key presses per step of the random policy.
+    private static final int SCRIPT_INTERVAL = 6;        // Steps between two commands of a scripted policy.
+
+    private int games = 1000;                                              // Number of games to play.
+    private int threads = Runtime.getRuntime().availableProcessors();      // Size of the worker pool.
+    private long seed = 1;                                                 // Master seed of the batch.
+    private Command[] script;                                              // Scripted commands, or null for random input.
+    private boolean bot;                                                   // True to let an AutoPlayer play.
+    private String generator = "bag";                                      // Piece generator of every game.
+    private long maxTicks = 60L * 60 * GameLoop.TICKS_PER_SECOND;          // Steps after which a game is cut off.
+    private double powerupChance = 0.9;                                    // Passed to Game.setPowerupChance.
+    private int powerupLifetime = 36;                                      // Passed to Game.setPowerupLifetime.
+    private int powerupEvery;                                              // Steps between spawn attempts; 0 for never.
+    private TranspositionTable table;                                      // Board scores shared by every bot, or null.
+
+    /**
+     * The outcome of one simulated game.
+     */
+    private static final class Result {
+        int score;          // Final score.
+        int level;          // Level reached.
+        int lines;          // Lines cleared.
+        long ticks;         // Steps played.
+        boolean over;       // True if the game ended, false if it was cut off.
+        long[] pieces;      // Pieces dealt, by shape id.
+        long maxDrought;    // Most pieces dealt between two pieces of the same shape.
+        int powerupsSpawned;
+        int powerupsCollected;
+        long decisions;         // Placement searches of the bot.
+        long decisionNanos;     // Time the bot spent searching.
+        long maxDecisionNanos;  // Longest search of the bot.
+    }
+
+    /**
+     * Entry point of the simulation mode.
+     *
+     * @param args The command-line arguments, starting with "--simulate".
+     */
+    public static void run(String[] args) {
+        BatchSimulator simulator = new BatchSimulator();
+        try {
+            simulator.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            printUsage();
+            return;
+        }
+        simulator.simulate();
+    }
+
+    // Prints the accepted options
+    private static void printUsage() {
+        System.out.println("Usage: --simulate [options]");
+        System.out.println("  --games N             number of games to play (default 1000)");
+        System.out.println("  --threads N           worker threads (default: available processors)");
+        System.out.println("  --seed S              master seed of the batch (default 1)");
+        System.out.println("  --policy P            random, bot, or scripted:CMD,CMD,... with Command names");
+        System.out.println("  --generator G         uniform, bag, or weighted:W,W,... with one weight per shape (default bag)");
+        System.out.println("  --table N             slots of a transposition table shared by the bots (default none)");
+        System.out.println("  --max-ticks N         steps after which a game is cut off (default one hour)");
+        System.out.println("  --powerup-chance P    chance that a spawn attempt places a power-up (default 0.9)");
+        System.out.println("  --powerup-lifetime N  gravity ticks a power-up stays on the board (default 36)");
+        System.out.println("  --powerup-every N     steps between power-up spawn attempts (default 0, never)");
+    }
+
+    /**
+     * Reads the options of a batch from the command line.
+     *
+     * @param args The command-line arguments; a leading "--simulate" is skipped.
+     */
+    void parse(String[] args) {
+        int i = (args.length > 0 && args[0].equals("--simulate")) ? 1 : 0;
+        for (; i < args.length; i += 2) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[i + 1];
+            try {
+                switch (option) {
+                    case "--games":
+                        games = Integer.parseInt(value);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--policy":
+                        bot = value.equals("bot");
+                        script = bot ? null : parsePolicy(value);
+                        break;
+                    case "--generator":
+                        newGenerator(value); // Fail early on a bad value.
+                        generator = value;
+                        break;
+                    case "--table":
+                        table = new TranspositionTable(Integer.parseInt(value));
+                        break;
+                    case "--max-ticks":
+                        maxTicks = Long.parseLong(value);
+                        break;
+                    case "--powerup-chance":
+                        powerupChance = Double.parseDouble(value);
+                        break;
+                    case "--powerup-lifetime":
+                        powerupLifetime = Integer.parseInt(value);
+                        break;
+                    case "--powerup-every":
+                        powerupEvery = Integer.parseInt(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + option);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+            }
+        }
+        if (games <= 0 || threads <= 0 || maxTicks <= 0 || powerupEvery < 0) {
+            throw new IllegalArgumentException("Counts must be positive");
+        }
+        // Let the game check the power-up settings before any worker starts.
+        Game check = new Game(seed);
+        check.setPowerupChance(powerupChance);
+        check.setPowerupLifetime(powerupLifetime);
+    }
+
+    // Parses "random" or "scripted:CMD,CMD,..."; returns the script, or null for random input
+    private static Command[] parsePolicy(String value) {
+        if (value.equals("random")) {
+            return null;
+        }
+        if (!value.startsWith("scripted:")) {
+            throw new IllegalArgumentException("Unknown policy: " + value);
+        }
+        String[] names = value.substring("scripted:".length()).split(",");
+        Command[] commands = new Command[names.length];
+        for (int i = 0; i < names.length; i++) {
+            try {
+                commands[i] = Command.valueOf(names[i].trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown command: " + names[i]);
+            }
+        }
+        return commands;
+    }
+
+    // Creates the piece generator named on the command line; every game needs its own
+    private static PieceGenerator newGenerator(String value) {
+        int shapes = ShapeRegistry.getDefault().size();
+        if (value.equals("uniform")) {
+            return PieceGenerator.uniform(shapes);
+        }
+        if (value.equals("bag")) {
+            return PieceGenerator.bag(shapes);
+        }
+        if (!value.startsWith("weighted:")) {
+            throw new IllegalArgumentException("Unknown generator: " + value);
+        }
+        String[] parts = value.substring("weighted:".length()).split(",");
+        if (parts.length != shapes) {
+            throw new IllegalArgumentException("Expected " + shapes + " weights: " + value);
+        }
+        double[] weights = new double[shapes];
+        for (int i = 0; i < shapes; i++) {
+            weights[i] = Double.parseDouble(parts[i].trim());
+        }
+        return PieceGenerator.weighted(weights);
+    }
+
+    /**
+     * Plays the batch on the worker pool and prints the report.
+     */
+    void simulate() {
+        // Split every seed up front, so the games do not depend on scheduling.
+        GameRandom master = new GameRandom(seed);
+        long[] gameSeeds = new long[games];
+        long[] inputSeeds = new long[games];
+        for (int i = 0; i < games; i++) {
+            gameSeeds[i] = master.nextLong();
+            inputSeeds[i] = master.nextLong();
+        }
+
+        System.out.println("Simulating " + games + " games on " + threads + " threads, seed " + seed
+                + ", policy " + (bot ? "bot" : script == null ? "random" : "scripted " + Arrays.toString(script)));
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "bubbleswerve-sim");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        List<Result> results = new ArrayList<>(games);
+        try {
+            List<Future<Result>> futures = new ArrayList<>(games);
+            for (int i = 0; i < games; i++) {
+                long gameSeed = gameSeeds[i];
+                long inputSeed = inputSeeds[i];
+                futures.add(pool.submit(() -> play(gameSeed, inputSeed)));
+            }
+            for (Future<Result> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulated game failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        report(results, System.nanoTime() - start);
+    }
+
+    /**
+     * Plays one game to its end, or until it is cut off.
+     *
+     * @param gameSeed  Seed of the game's own random source.
+     * @param inputSeed Seed of the random input policy.
+     * @return The outcome of the game.
+     */
+    private Result play(long gameSeed, long inputSeed) {
+        Game game = new Game(gameSeed);
+        game.setLogging(false);
+        game.setPowerupChance(powerupChance);
+        game.setPowerupLifetime(powerupLifetime);
+        game.setPieceGenerator(newGenerator(generator));
+        GameLoop loop = game.getLoop();
+        AutoPlayer autoPlayer = bot ? new AutoPlayer(1, table) : null;
+        InputPolicy policy = bot ? autoPlayer
+                : script == null ? InputPolicy.random(new GameRandom(inputSeed), RANDOM_INPUT_RATE)
+                : InputPolicy.scripted(script, SCRIPT_INTERVAL);
+
+        Result result = new Result();
+        result.pieces = new long[ShapeRegistry.getDefault().size()];
+        game.addListener(new GameListener() {
+            @Override
+            public void frameReady(FrameSnapshot frame) {
+            }
+
+            private final long[] lastSeen = new long[result.pieces.length]; // Number of the last piece of each shape, plus one.
+            private long dealt;
+
+            @Override
+            public void pieceSpawned(BubbloidShape shape) {
+                int id = shape.getId();
+                result.pieces[id]++;
+                result.maxDrought = Math.max(result.maxDrought, dealt - lastSeen[id]);
+                lastSeen[id] = ++dealt;
+            }
+
+            @Override
+            public void powerUpActivated(Game.PowerUpType type) {
+                result.powerupsCollected++;
+            }
+        });
+
+        // This thread is both producer and consumer of the loop's input queue.
+        long tick = 0;
+        while (!game.isGameOver() && tick < maxTicks) {
+            Command command = policy.next(game, tick);
+            if (command != null) {
+                loop.submit(command);
+            }
+            if (powerupEvery > 0 && tick % powerupEvery == 0 && !game.isPowerupActive()) {
+                game.spawnPowerUp();
+                if (game.isPowerupActive()) {
+                    result.powerupsSpawned++;
+                }
+            }
+            loop.step();
+            tick++;
+        }
+
+        result.score = game.getScore();
+        result.level = game.getLevel();
+        result.lines = game.getLinesCleared();
+        result.ticks = tick;
+        result.over = game.isGameOver();
+        if (autoPlayer != null) {
+            result.decisions = autoPlayer.getDecisionCount();
+            result.decisionNanos = autoPlayer.getAverageDecisionNanos() * autoPlayer.getDecisionCount();
+            result.maxDecisionNanos = autoPlayer.getMaxDecisionNanos();
+        }
+        return result;
+    }
+
+    /**
+     * Prints the throughput and distributions of a finished batch.
+     *
+     * @param results     The outcome of every game.
+     * @param elapsedNanos Wall-clock time of the batch.
+     */
+    private void report(List<Result> results, long elapsedNanos) {
+        int n = results.size();
+        int[] scores = new int[n];
+        long totalTicks = 0;
+        long totalScore = 0;
+        long totalLines = 0;
+        int finished = 0;
+        int maxLevel = 0;
+        long spawned = 0;
+        long collected = 0;
+        long[] pieces = new long[ShapeRegistry.getDefault().size()];
+        long maxDrought = 0;
+        for (int i = 0; i < n; i++) {
+            Result result = results.get(i);
+            maxDrought = Math.max(maxDrought, result.maxDrought);
+            scores[i] = result.score;
+            totalTicks += result.ticks;
+            totalScore += result.score;
+            totalLines += result.lines;
+            finished += result.over ? 1 : 0;
+            maxLevel = Math.max(maxLevel, result.level);
+            spawned += result.powerupsSpawned;
+            collected += result.powerupsCollected;
+            for (int s = 0; s < pieces.length; s++) {
+                pieces[s] += result.pieces[s];
+            }
+        }
+        Arrays.sort(scores);
+        double seconds = elapsedNanos / 1e9;
+
+        System.out.println();
+        System.out.printf("Games:      %d (%d ended, %d cut off at %d ticks)%n", n, finished, n - finished, maxTicks);
+        System.out.printf("Wall time:  %.2f s%n", seconds);
+        System.out.printf("Throughput: %.0f ticks/s, %.1f games/s%n", totalTicks / seconds, n / seconds);
+        System.out.printf("Game time:  %.1f s on average%n", (double) totalTicks / n / GameLoop.TICKS_PER_SECOND);
+        System.out.printf("Score:      mean %.1f, min %d, p50 %d, p90 %d, max %d%n",
+                (double) totalScore / n, scores[0], percentile(scores, 50), percentile(scores, 90), scores[n - 1]);
+        System.out.printf("Lines:      %.2f per game%n", (double) totalLines / n);
+
+        int[] levels = new int[maxLevel + 1];
+        for (Result result : results) {
+            levels[result.level]++;
+        }
+        System.out.println("Levels:");
+        for (int level = 0; level <= maxLevel; level++) {
+            if (levels[level] > 0) {
+                System.out.printf("  %3d  %6d  %5.1f%%%n", level, levels[level], 100.0 * levels[level] / n);
+            }
+        }
+
+        long totalPieces = 0;
+        for (long count : pieces) {
+            totalPieces += count;
+        }
+        System.out.println("Pieces:");
+        ShapeRegistry shapes = ShapeRegistry.getDefault();
+        for (int s = 0; s < pieces.length; s++) {
+            System.out.printf("  %-12s %8d  %5.1f%%%n", shapes.get(s).getName(), pieces[s],
+                    totalPieces == 0 ? 0.0 : 100.0 * pieces[s] / totalPieces);
+        }
+        System.out.printf("Droughts:   at most %d pieces between two of a shape (generator %s)%n", maxDrought, generator);
+        System.out.printf("Power-ups:  %d spawned, %d collected (chance %.2f, lifetime %d)%n",
+                spawned, collected, powerupChance, powerupLifetime);
+
+        if (bot) {
+            long decisions = 0;
+            long decisionNanos = 0;
+            long maxDecisionNanos = 0;
+            for (Result result : results) {
+                decisions += result.decisions;
+                decisionNanos += result.decisionNanos;
+                maxDecisionNanos = Math.max(maxDecisionNanos, result.maxDecisionNanos);
+            }
+            System.out.printf("Bot:        %d decisions, avg %.1f us, max %.1f us%n", decisions,
+                    decisions == 0 ? 0.0 : decisionNanos / 1e3 / decisions, maxDecisionNanos / 1e3);
+        }
+        if (bot && table != null) {
+            long lookups = table.getHits() + table.getMisses();
+            System.out.printf("Table:      %d lookups, %.1f%% hits, %d slots%n", lookups,
+                    lookups == 0 ? 0.0 : 100.0 * table.getHits() / lookups, table.getCapacity());
+        }
+    }
+
+    // Nearest-rank percentile of sorted values
+    private static int percentile(int[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
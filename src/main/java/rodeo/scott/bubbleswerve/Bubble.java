@@ -1,17 +1,9 @@
 package rodeo.scott.bubbleswerve;
-import java.awt.BasicStroke;
-import java.awt.Color;
-import java.awt.Dimension;
-import java.awt.GradientPaint;
-import java.awt.Graphics;
-import java.awt.Graphics2D;
-import java.awt.Insets;
-import javax.swing.JFrame;
 
 /**
  * Represents a single bubble in the game grid.
  * Each bubble has a position, color, and mobility status.
- * Provides functionality for movement, rotation, and rendering.
+ * Provides functionality for movement and rotation; bubbles are drawn by BubblePainter.
  * 
  * @author https://scott.rodeo/
  */
@@ -20,7 +12,7 @@ public class Bubble {
     private Grid grid;  // Reference to the game grid.
     private int row, col;  // Current position of the bubble in the grid.
     private boolean ableToMove;  // Indicates if the bubble can move.
-    private Color color;  // Color of the bubble.
+    private int color;  // Palette index of the bubble's color.
 
     /**
      * Constructs a new Bubble.
@@ -28,10 +20,10 @@ public class Bubble {
      * @param grid   The game grid to which the bubble belongs.
      * @param row    Initial row position of the bubble.
      * @param col    Initial column position of the bubble.
-     * @param c      The color of the bubble.
+     * @param c      The palette index of the bubble's color.
      * @param mobile Indicates whether the bubble can move.
      */
-    public Bubble(Grid grid, int row, int col, Color c, boolean mobile) {
+    public Bubble(Grid grid, int row, int col, int c, boolean mobile) {
         this.grid = grid;
         this.row = row;
         this.col = col;
@@ -47,6 +39,16 @@ public class Bubble {
         // No initialization logic currently needed.
     }
 
+    /**
+     * Makes the bubble movable again on a grid, for a piece reused by a BubbloidPool.
+     * 
+     * @param grid The game grid to which the bubble now belongs.
+     */
+    void reset(Grid grid) {
+        this.grid = grid;
+        ableToMove = true;
+    }
+
     public int getRow() {
         return row;
     }
@@ -164,62 +166,18 @@ public class Bubble {
     /**
      * Changes the color of the bubble.
      * 
-     * @param c The new color.
+     * @param c The palette index of the new color.
      */
-    public void setColor(Color c) {
+    public void setColor(int c) {
         color = c;
     }
 
     /**
      * Gets the color of the bubble.
      * 
-     * @return The current color of the bubble.
+     * @return The palette index of the bubble's current color.
      */
-    public Color getColor() {
+    public int getColor() {
         return color;
     }
-
-    /**
-     * Draws the bubble on the given graphics context.
-     * 
-     * @param g The graphics context.
-     */
-    public void draw(Graphics g) {
-        if (color.equals(Grid.EMPTY)) {
-            return; // Skip rendering for empty bubbles.
-        }
-
-        Graphics2D g2d = (Graphics2D) g;
-
-        int cellSize = grid.getPanelGame().getCellSize();
-
-        // Calculate the upper left (x, y) coordinate of the bubble.
-        int actualX = Grid.LEFT + (col * cellSize);
-        int actualY = Grid.TOP + (row * cellSize);
-
-        // Draw the outer bubble (background).
-        g2d.setColor(color);
-        g2d.fillOval(actualX, actualY, cellSize, cellSize);
-
-        // Add an inner border for texture.
-        g2d.setColor(color.darker());
-        g2d.setStroke(new BasicStroke(2));
-        g2d.drawOval(actualX + 2, actualY + 2, cellSize - 4, cellSize - 4);
-
-        // Add a gradient for a 3D effect.
-        GradientPaint gradient = new GradientPaint(
-            actualX, actualY, color.brighter(),
-            actualX + cellSize, actualY + cellSize, color.darker()
-        );
-        g2d.setPaint(gradient);
-        g2d.fillOval(actualX + 4, actualY + 4, cellSize - 8, cellSize - 8);
-
-        // Add inner grid lines for texture.
-        g2d.setColor(new Color(255, 255, 255, 150));
-        g2d.fillOval(actualX + (cellSize / 4), actualY + (cellSize / 4), cellSize / 4, cellSize / 4);
-
-        // Draw the black outline.
-        g2d.setColor(Color.BLACK);
-        g2d.drawOval(actualX, actualY, cellSize, cellSize);
-    }
 }
@@ -0,0 +1,119 @@
+package rodeo.scott.bubbleswerve;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+
+/**
+ * Draws bubbles for the Swing front end.
+ * The game model only knows cells and palette indices; the painter maps a cell to pixels
+ * using the grid's position on the panel and the cell size, and resolves the palette index
+ * to a Color.
+ *
+ * @author https://scott.rodeo/
+ */
+public class BubblePainter {
+
+    private int left;       // Pixel position of the left of the grid.
+    private int top;        // Pixel position of the top of the grid.
+    private int cellSize;   // Size of a cell in pixels.
+
+    /**
+     * Sets where the grid is drawn on the panel.
+     *
+     * @param left     Pixel position of the left of the grid.
+     * @param top      Pixel position of the top of the grid.
+     * @param cellSize Size of a cell in pixels.
+     */
+    public void setLayout(int left, int top, int cellSize) {
+        this.left = left;
+        this.top = top;
+        this.cellSize = cellSize;
+    }
+
+    public int getLeft() {
+        return left;
+    }
+
+    public int getTop() {
+        return top;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Draws a bubble.
+     *
+     * @param g     The graphics context.
+     * @param row   Row of the cell.
+     * @param col   Column of the cell.
+     * @param index The palette index of the bubble's color; EMPTY draws nothing.
+     */
+    public void paintBubble(Graphics g, int row, int col, int index) {
+        if (index == Grid.EMPTY) {
+            return; // Skip rendering for empty bubbles.
+        }
+
+        Graphics2D g2d = (Graphics2D) g;
+        Color color = Palette.getColor(index); // Resolve the palette index for drawing.
+
+        // Calculate the upper left (x, y) coordinate of the bubble.
+        int actualX = left + (col * cellSize);
+        int actualY = top + (row * cellSize);
+
+        // Draw the outer bubble (background).
+        g2d.setColor(color);
+        g2d.fillOval(actualX, actualY, cellSize, cellSize);
+
+        // Add an inner border for texture.
+        g2d.setColor(color.darker());
+        g2d.setStroke(new BasicStroke(2));
+        g2d.drawOval(actualX + 2, actualY + 2, cellSize - 4, cellSize - 4);
+
+        // Add a gradient for a 3D effect.
+        GradientPaint gradient = new GradientPaint(
+            actualX, actualY, color.brighter(),
+            actualX + cellSize, actualY + cellSize, color.darker()
+        );
+        g2d.setPaint(gradient);
+        g2d.fillOval(actualX + 4, actualY + 4, cellSize - 8, cellSize - 8);
+
+        // Add inner grid lines for texture.
+        g2d.setColor(new Color(255, 255, 255, 150));
+        g2d.fillOval(actualX + (cellSize / 4), actualY + (cellSize / 4), cellSize / 4, cellSize / 4);
+
+        // Draw the black outline.
+        g2d.setColor(Color.BLACK);
+        g2d.drawOval(actualX, actualY, cellSize, cellSize);
+    }
+
+    /**
+     * Draws the outline of a bubble, as a preview of where a piece will land.
+     *
+     * @param g     The graphics context.
+     * @param row   Row of the cell.
+     * @param col   Column of the cell.
+     * @param index The palette index of the bubble's color; EMPTY draws nothing.
+     */
+    public void paintGhost(Graphics g, int row, int col, int index) {
+        if (index == Grid.EMPTY) {
+            return; // Skip rendering for empty bubbles.
+        }
+
+        Graphics2D g2d = (Graphics2D) g;
+        Color color = Palette.getColor(index);
+
+        int actualX = left + (col * cellSize);
+        int actualY = top + (row * cellSize);
+
+        // Faint fill with a solid outline in the piece's color.
+        g2d.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 60));
+        g2d.fillOval(actualX + 2, actualY + 2, cellSize - 4, cellSize - 4);
+        g2d.setColor(color);
+        g2d.setStroke(new BasicStroke(2));
+        g2d.drawOval(actualX + 2, actualY + 2, cellSize - 4, cellSize - 4);
+    }
+}
@@ -0,0 +1,24 @@
+package rodeo.scott.bubbleswerve;
+
+/**
+ * A Bubbloid game piece built from a shape definition in a ShapeRegistry.
+ * The piece takes its geometry and color from the shared, precompiled shape, so new
+ * shapes need no subclass of their own.
+ *
+ * @author https://scott.rodeo/
+ */
+public class Bubbloid extends AbstractBubbloid {
+
+    /**
+     * Constructs a new game piece of the given shape.
+     *
+     * @param initialRow    The initial row position for the piece.
+     * @param initialColumn The initial column position for the piece.
+     * @param grid          The game grid where the piece resides.
+     * @param shape         The shape definition of the piece.
+     */
+    public Bubbloid(int initialRow, int initialColumn, Grid grid, BubbloidShape shape) {
+        // Pass the initial position, grid, and the shape's own color to the superclass constructor.
+        super(initialRow, initialColumn, grid, shape.getColor(), shape);
+    }
+}
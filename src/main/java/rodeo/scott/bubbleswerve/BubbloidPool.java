@@ -0,0 +1,86 @@
+package rodeo.scott.bubbleswerve;
+
+/**
+ * Recycles the pieces of one game. A piece that locks or is thrown away goes back to the pool,
+ * and the next piece of the same shape is reset in place rather than built again with new
+ * bubbles, so once every shape has been dealt a few times, spawning allocates nothing.
+ *
+ * Each shape keeps a small stack of free pieces; pieces released beyond that are left to the
+ * garbage collector. Used on the loop thread only, like the game it belongs to.
+ *
+ * @author https://scott.rodeo/
+ */
+public class BubbloidPool {
+
+    public static final int FREE_PER_SHAPE = 4; // Free pieces kept per shape: the preview, the active piece and one spare.
+
+    private AbstractBubbloid[][] free = new AbstractBubbloid[0][]; // Free pieces by shape id.
+    private int[] freeCount = new int[0];                           // Number of free pieces of each shape.
+    private long created;                                           // Pieces built because none were free.
+    private long reused;                                            // Pieces taken from the pool.
+
+    /**
+     * Gets a piece of a shape in its spawn rotation state, reusing a free one if there is one.
+     *
+     * @param shape The shape of the piece.
+     * @param grid  The grid the piece is played on.
+     * @return The piece, with its pivot at the top left corner of the grid.
+     */
+    public AbstractBubbloid acquire(BubbloidShape shape, Grid grid) {
+        int id = shape.getId();
+        if (id < freeCount.length && freeCount[id] > 0) {
+            AbstractBubbloid piece = free[id][--freeCount[id]];
+            free[id][freeCount[id]] = null;
+            if (piece.getShape() == shape) {
+                piece.reset(grid);
+                reused++;
+                return piece;
+            }
+            // The shape was reloaded under the same id; let the old piece go.
+        }
+        created++;
+        return new Bubbloid(0, 0, grid, shape);
+    }
+
+    /**
+     * Returns a piece that is no longer played. Nothing may use the piece afterwards.
+     *
+     * @param piece The piece.
+     */
+    public void release(AbstractBubbloid piece) {
+        int id = piece.getShape().getId();
+        if (id >= freeCount.length) {
+            int size = id + 1;
+            AbstractBubbloid[][] grown = new AbstractBubbloid[size][];
+            System.arraycopy(free, 0, grown, 0, free.length);
+            for (int i = free.length; i < size; i++) {
+                grown[i] = new AbstractBubbloid[FREE_PER_SHAPE];
+            }
+            free = grown;
+            int[] counts = new int[size];
+            System.arraycopy(freeCount, 0, counts, 0, freeCount.length);
+            freeCount = counts;
+        }
+        if (freeCount[id] < FREE_PER_SHAPE) {
+            free[id][freeCount[id]++] = piece;
+        }
+    }
+
+    /**
+     * Gets the number of pieces built because the pool had none of their shape.
+     *
+     * @return The count of new pieces.
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * Gets the number of pieces the pool handed out again.
+     *
+     * @return The count of reused pieces.
+     */
+    public long getReused() {
+        return reused;
+    }
+}
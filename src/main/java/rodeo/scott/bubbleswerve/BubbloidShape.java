@@ -0,0 +1,241 @@
+package rodeo.scott.bubbleswerve;
+
+/**
+ * The immutable, compiled definition of a Bubbloid shape, shared by every piece of that shape.
+ * The four rotation states, their bounding boxes and their collision row masks are compiled
+ * once from the shape's bubble offsets, so rotating a piece only switches its state index and
+ * never recomputes coordinates.
+ *
+ * All offsets are relative to the pivot bubble, which is the bubble a piece rotates
+ * around and whose grid position is the position of the piece.
+ *
+ * @author https://scott.rodeo/
+ */
+public final class BubbloidShape {
+
+    public static final int ROTATIONS = 4;  // Number of rotation states.
+
+    private final int id;               // Position of the shape in its registry.
+    private final String name;          // Name of the shape, e.g. "L5".
+    private final int color;            // Palette index of the shape's color.
+    private final int size;             // Number of bubbles in the shape.
+    private final int pivotRow;         // Row offset of the pivot from the spawn position.
+    private final int pivotCol;         // Column offset of the pivot from the spawn position.
+    private final int[][] rowOffsets;   // Row offsets of each bubble, by rotation state.
+    private final int[][] colOffsets;   // Column offsets of each bubble, by rotation state.
+    private final int[] minRow;         // Bounding box of each rotation state, relative to the pivot.
+    private final int[] maxRow;
+    private final int[] minCol;
+    private final int[] maxCol;
+    private final long[][] rowMasks;    // Occupied columns of each bounding box row, bit 0 = minCol.
+
+    private BubbloidShape(int id, String name, int color, int pivotRow, int pivotCol, int[][] rowOffsets, int[][] colOffsets) {
+        this.id = id;
+        this.name = name;
+        this.color = color;
+        this.size = rowOffsets[0].length;
+        this.pivotRow = pivotRow;
+        this.pivotCol = pivotCol;
+        this.rowOffsets = rowOffsets;
+        this.colOffsets = colOffsets;
+        this.minRow = new int[ROTATIONS];
+        this.maxRow = new int[ROTATIONS];
+        this.minCol = new int[ROTATIONS];
+        this.maxCol = new int[ROTATIONS];
+        this.rowMasks = new long[ROTATIONS][];
+
+        // Compile the bounding box and row masks of each rotation state.
+        for (int state = 0; state < ROTATIONS; state++) {
+            minRow[state] = maxRow[state] = rowOffsets[state][0];
+            minCol[state] = maxCol[state] = colOffsets[state][0];
+            for (int i = 1; i < size; i++) {
+                minRow[state] = Math.min(minRow[state], rowOffsets[state][i]);
+                maxRow[state] = Math.max(maxRow[state], rowOffsets[state][i]);
+                minCol[state] = Math.min(minCol[state], colOffsets[state][i]);
+                maxCol[state] = Math.max(maxCol[state], colOffsets[state][i]);
+            }
+            if (maxCol[state] - minCol[state] >= Long.SIZE) {
+                throw new IllegalArgumentException("Shape is too wide for a row mask.");
+            }
+            rowMasks[state] = new long[maxRow[state] - minRow[state] + 1];
+            for (int i = 0; i < size; i++) {
+                rowMasks[state][rowOffsets[state][i] - minRow[state]] |= 1L << (colOffsets[state][i] - minCol[state]);
+            }
+        }
+    }
+
+    /**
+     * Compiles a shape from the offsets of its bubbles relative to the spawn position.
+     * The piece rotates around its second bubble (or its only bubble, for single-bubble shapes).
+     *
+     * @param id        Position of the shape in its registry.
+     * @param name      Name of the shape.
+     * @param color     Palette index of the shape's color.
+     * @param rowOffset Row offsets of the bubbles in the spawn orientation.
+     * @param colOffset Column offsets of the bubbles in the spawn orientation.
+     * @return The compiled shape.
+     */
+    public static BubbloidShape compile(int id, String name, int color, int[] rowOffset, int[] colOffset) {
+        if (rowOffset.length != colOffset.length) {
+            throw new IllegalArgumentException("Mismatch between row and column offsets.");
+        }
+        int size = rowOffset.length;
+        if (size == 0) {
+            throw new IllegalArgumentException("A shape needs at least one bubble.");
+        }
+
+        int[][] rows = new int[ROTATIONS][];
+        int[][] cols = new int[ROTATIONS][];
+
+        // Spawn orientation, relative to the pivot bubble.
+        rows[0] = rowOffset.clone();
+        cols[0] = colOffset.clone();
+        int pivot = size > 1 ? 1 : 0;
+        int pivotRow = rows[0][pivot];
+        int pivotCol = cols[0][pivot];
+        for (int i = 0; i < size; i++) {
+            rows[0][i] -= pivotRow;
+            cols[0][i] -= pivotCol;
+        }
+
+        // Each following state is a clockwise quarter turn of the previous one.
+        for (int state = 1; state < ROTATIONS; state++) {
+            rows[state] = new int[size];
+            cols[state] = new int[size];
+            for (int i = 0; i < size; i++) {
+                rows[state][i] = cols[state - 1][i];
+                cols[state][i] = -rows[state - 1][i];
+            }
+        }
+
+        return new BubbloidShape(id, name, color, pivotRow, pivotCol, rows, cols);
+    }
+
+    /**
+     * Gets the position of the shape in its registry.
+     *
+     * @return The shape's id.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gets the name of the shape.
+     *
+     * @return The shape's name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the color pieces of this shape are drawn with.
+     *
+     * @return The palette index of the shape's color.
+     */
+    public int getColor() {
+        return color;
+    }
+
+    /**
+     * Gets the number of bubbles in the shape.
+     *
+     * @return The bubble count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the row of the pivot relative to the position a piece is spawned at.
+     *
+     * @return The pivot's row offset in the spawn orientation.
+     */
+    public int getPivotRow() {
+        return pivotRow;
+    }
+
+    /**
+     * Gets the column of the pivot relative to the position a piece is spawned at.
+     *
+     * @return The pivot's column offset in the spawn orientation.
+     */
+    public int getPivotCol() {
+        return pivotCol;
+    }
+
+    /**
+     * Gets the row offset of a bubble from the pivot.
+     *
+     * @param rotation The rotation state (0 to 3).
+     * @param i        Index of the bubble.
+     * @return The row offset.
+     */
+    public int getRowOffset(int rotation, int i) {
+        return rowOffsets[rotation][i];
+    }
+
+    /**
+     * Gets the column offset of a bubble from the pivot.
+     *
+     * @param rotation The rotation state (0 to 3).
+     * @param i        Index of the bubble.
+     * @return The column offset.
+     */
+    public int getColOffset(int rotation, int i) {
+        return colOffsets[rotation][i];
+    }
+
+    /**
+     * Gets the top row of a rotation state's bounding box, relative to the pivot.
+     *
+     * @param rotation The rotation state (0 to 3).
+     * @return The smallest row offset.
+     */
+    public int getMinRow(int rotation) {
+        return minRow[rotation];
+    }
+
+    /**
+     * Gets the bottom row of a rotation state's bounding box, relative to the pivot.
+     *
+     * @param rotation The rotation state (0 to 3).
+     * @return The largest row offset.
+     */
+    public int getMaxRow(int rotation) {
+        return maxRow[rotation];
+    }
+
+    /**
+     * Gets the left column of a rotation state's bounding box, relative to the pivot.
+     *
+     * @param rotation The rotation state (0 to 3).
+     * @return The smallest column offset.
+     */
+    public int getMinCol(int rotation) {
+        return minCol[rotation];
+    }
+
+    /**
+     * Gets the right column of a rotation state's bounding box, relative to the pivot.
+     *
+     * @param rotation The rotation state (0 to 3).
+     * @return The largest column offset.
+     */
+    public int getMaxCol(int rotation) {
+        return maxCol[rotation];
+    }
+
+    /**
+     * Gets the occupied columns of one row of a rotation state's bounding box.
+     * Bit 0 of the mask is the bounding box's left column.
+     *
+     * @param rotation The rotation state (0 to 3).
+     * @param i        Row index within the bounding box, 0 being its top row.
+     * @return The row mask.
+     */
+    public long getRowMask(int rotation, int i) {
+        return rowMasks[rotation][i];
+    }
+}
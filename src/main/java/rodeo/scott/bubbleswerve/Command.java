@@ -0,0 +1,23 @@
+package rodeo.scott.bubbleswerve;
+
+/**
+ * Player and menu inputs, as queued for the game loop.
+ * The arrow commands name the key that was pressed, not the move it makes: what an arrow
+ * does depends on the orientation of the board when the command is applied, which is decided
+ * by Game.applyCommand on the loop thread.
+ *
+ * @author https://scott.rodeo/
+ */
+public enum Command {
+    LEFT,                       // Left arrow or A.
+    RIGHT,                      // Right arrow or D.
+    DOWN,                       // Down arrow or S.
+    UP,                         // Up arrow or W.
+    HARD_DROP,                  // Drop the piece to its landing position.
+    ROTATE_COUNTERCLOCKWISE,    // Rotate the piece counterclockwise.
+    TOGGLE_PAUSE,               // Pause or resume the game.
+    ROTATE_BOARD,               // Rotate the board clockwise.
+    PAUSE,                      // Pause the game, e.g. while a dialog is open.
+    RESUME,                     // Resume the game.
+    RESTART                     // Start a new game.
+}
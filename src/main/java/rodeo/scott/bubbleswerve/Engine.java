@@ -4,6 +4,11 @@ import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The Engine class serves as the main controller for the Bubble Swerve game.
@@ -18,16 +23,32 @@ import javax.swing.*;
  */
 public class Engine {
 
+    public static final String JOURNAL_DIRECTORY = "journals"; // Where games are recorded.
+    public static final String AUTOSAVE_FILE = "autosave.bss";  // Where the game is saved in the background.
+    public static final String SCORE_DIRECTORY = "scores";      // Where finished games are kept for the leaderboard.
+
+    private ScoreStore scores;                                   // Leaderboard, or null if it cannot be opened.
+    private ExecutorService scoreWriter;                         // Records finished games off the loop thread.
+
     public Game game;               // The Game instance managing game logic.
     public JFrame programWindow;    // The main application window.
     public PanelMenu panelMenu;     // The menu panel.
     public PanelGame panelGame;     // The game panel.
 
+    /**
+     * Constructs the Engine with a new game.
+     */
+    public Engine() {
+        this(false);
+    }
+
     /**
      * Constructs the Engine and initializes the game components.
      * This sets up the main program window, game logic, and panel transitions.
+     *
+     * @param resume True to continue the autosaved game instead of starting a new one.
      */
-    public Engine() {
+    public Engine(boolean resume) {
 
         // Set up the main application window.
         programWindow = new JFrame("PanelGame");
@@ -37,8 +58,15 @@ public class Engine {
         programWindow.setUndecorated(false);            // Window decorations enabled.
         programWindow.setResizable(true);               // Allows resizing.
 
-        // Initialize the game logic.
-        game = new Game(this);
+        // Initialize the game logic. A new game is recorded for replays; a resumed one cannot
+        // be, since a journal replays a game from its first tick.
+        game = new Game();
+        if (!(resume && resumeGame())) {
+            startJournal();
+        }
+        game.setAutosaver(new Autosaver(game, AUTOSAVE_FILE));
+        openScores();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stopGame, "bubbleswerve-shutdown"));
 
         // Create and initialize panels.
         panelMenu = new PanelMenu(this);                // Menu panel for navigation.
@@ -57,6 +85,120 @@ public class Engine {
 
         // Make the application window visible.
         programWindow.setVisible(true);
+
+        // Let the game panel follow the game, then start the game loop.
+        game.addListener(panelGame);
+        game.getLoop().start();
+    }
+
+    /**
+     * Records the game in a new file of the journal directory, and makes sure the journal is
+     * completed when the program exits. The game runs unrecorded if the file cannot be created.
+     */
+    private void startJournal() {
+        long seed = game.getRandom().getSeed();
+        File directory = new File(JOURNAL_DIRECTORY);
+        File file = new File(directory, "game-" + Long.toHexString(seed) + ".bsj");
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Cannot create " + directory);
+            }
+            game.setJournal(GameJournal.create(file.getPath(), seed));
+        } catch (IOException e) {
+            System.out.println("Game will not be recorded: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Opens the leaderboard and records every finished game in it, under the player name from
+     * the bubbleswerve.player system property or the user's login name.
+     */
+    private void openScores() {
+        try {
+            scores = new ScoreStore(SCORE_DIRECTORY);
+        } catch (IOException e) {
+            System.out.println("Scores will not be kept: " + e.getMessage());
+            return;
+        }
+        String player = System.getProperty("bubbleswerve.player", System.getProperty("user.name"));
+        scoreWriter = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "bubbleswerve-scores");
+            thread.setDaemon(true);
+            return thread;
+        });
+        game.addListener(new GameListener() {
+            @Override
+            public void frameReady(FrameSnapshot frame) {
+            }
+
+            @Override
+            public void gameOver(int score) {
+                // Read the game on the loop thread, write the record on the score thread.
+                long seed = game.getRandom().getSeed();
+                long ticks = game.getLoop().getTick();
+                int level = game.getLevel();
+                int lines = game.getLinesCleared();
+                scoreWriter.execute(() -> {
+                    try {
+                        scores.record(player, seed, ticks, score, level, lines);
+                    } catch (IOException e) {
+                        System.out.println("Score not recorded: " + e.getMessage());
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Puts the game into the state of the autosave file.
+     *
+     * @return True if the game was restored, false if there is no usable autosave.
+     */
+    private boolean resumeGame() {
+        if (!new File(AUTOSAVE_FILE).isFile()) {
+            System.out.println("No saved game to resume.");
+            return false;
+        }
+        try {
+            game.restoreState(GameStateCodec.load(AUTOSAVE_FILE));
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Cannot resume saved game: " + e.getMessage());
+            return false;
+        }
+        game.publishSnapshot(game.getLoop().getTick());
+        return true;
+    }
+
+    /**
+     * Stops the game loop when the program exits, then completes the journal and writes a last
+     * autosave. The loop is stopped first so nothing changes the game while it is being saved.
+     */
+    private void stopGame() {
+        game.getLoop().stop();
+        GameJournal journal = game.getJournal();
+        if (journal != null) {
+            try {
+                journal.close(game.getLoop().getTick());
+            } catch (IOException e) {
+                System.out.println("Journal incomplete: " + e.getMessage());
+            }
+        }
+        Autosaver autosaver = game.getAutosaver();
+        if (autosaver != null) {
+            autosaver.save();
+            autosaver.close();
+        }
+        if (scores != null) {
+            scoreWriter.shutdown();
+            try {
+                scoreWriter.awaitTermination(5, TimeUnit.SECONDS);
+                scores.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                System.out.println("Score store not closed: " + e.getMessage());
+            }
+        }
     }
 
     /**
@@ -0,0 +1,192 @@
+package rodeo.scott.bubbleswerve;
+import rodeo.scott.bubbleswerve.Game.Orientation;
+import rodeo.scott.bubbleswerve.Game.PowerUpType;
+
+/**
+ * Immutable copy of everything needed to draw one frame of a game.
+ * The game loop captures a snapshot after each step that changed the game and publishes it
+ * through a volatile field, so the Swing thread can paint it without locking and without
+ * reading the game while it is being updated.
+ *
+ * All coordinates are in the rotated view the player sees.
+ *
+ * @author https://scott.rodeo/
+ */
+public final class FrameSnapshot {
+
+    private final long tick;            // Step of the game loop the snapshot was taken at.
+    private final int height;           // Rows of the view.
+    private final int width;            // Columns of the view.
+    private final byte[] cells;         // Palette index of every cell, row-major.
+    private final int[] pieceRows;      // Cells of the active piece; empty when there is none.
+    private final int[] pieceCols;
+    private final int pieceColor;       // Palette index of the active piece.
+    private final int ghostRowOffset;   // Offset from the active piece to its landing position.
+    private final int ghostColOffset;
+    private final boolean powerupActive;
+    private final int powerupX;         // Column of the power-up.
+    private final int powerupY;         // Row of the power-up.
+    private final PowerUpType powerupType;
+    private final int score;
+    private final int level;
+    private final boolean gameOver;
+    private final boolean paused;
+    private final Orientation orientation;
+    private final BubbloidShape[] preview; // Shapes of the upcoming pieces, next first.
+
+    /**
+     * Captures the state of a game. Must be called on the thread that updates the game.
+     *
+     * @param game The game to capture.
+     * @param tick The current step of the game loop.
+     */
+    FrameSnapshot(Game game, long tick) {
+        Grid grid = game.grid;
+        AbstractBubbloid piece = game.piece;
+
+        this.tick = tick;
+        this.height = grid.HEIGHT;
+        this.width = grid.WIDTH;
+        this.cells = new byte[height * width];
+        grid.copyCells(cells);
+
+        int count = piece == null ? 0 : piece.getCellCount();
+        this.pieceRows = new int[count];
+        this.pieceCols = new int[count];
+        if (piece != null) {
+            piece.getLocations(pieceRows, pieceCols);
+        }
+        this.pieceColor = piece == null ? Grid.EMPTY : piece.getColor();
+
+        int distance = game.getGhostDistance();
+        switch (game.getGravity()) {
+            case UP:
+                ghostRowOffset = -distance;
+                ghostColOffset = 0;
+                break;
+            case LEFT:
+                ghostRowOffset = 0;
+                ghostColOffset = -distance;
+                break;
+            case RIGHT:
+                ghostRowOffset = 0;
+                ghostColOffset = distance;
+                break;
+            default:
+                ghostRowOffset = distance;
+                ghostColOffset = 0;
+        }
+
+        this.powerupActive = game.isPowerupActive();
+        this.powerupX = game.getpowerupX();
+        this.powerupY = game.getpowerupY();
+        this.powerupType = game.getPowerupType();
+        this.score = game.getScore();
+        this.level = game.getLevel();
+        this.gameOver = game.isGameOver();
+        this.paused = game.getPaused();
+        this.orientation = game.currentOrientation;
+
+        PieceQueue queue = game.getPieceQueue();
+        this.preview = new BubbloidShape[queue.size()];
+        for (int i = 0; i < preview.length; i++) {
+            preview[i] = queue.peek(i);
+        }
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the color of a cell of the board, not counting the active piece.
+     *
+     * @param row The row of the view.
+     * @param col The column of the view.
+     * @return The palette index of the cell, EMPTY when unoccupied.
+     */
+    public int getColor(int row, int col) {
+        return cells[row * width + col];
+    }
+
+    /**
+     * Gets the number of cells of the active piece.
+     *
+     * @return The cell count, 0 when there is no active piece.
+     */
+    public int getPieceCellCount() {
+        return pieceRows.length;
+    }
+
+    public int getPieceRow(int i) {
+        return pieceRows[i];
+    }
+
+    public int getPieceCol(int i) {
+        return pieceCols[i];
+    }
+
+    public int getPieceColor() {
+        return pieceColor;
+    }
+
+    public int getGhostRowOffset() {
+        return ghostRowOffset;
+    }
+
+    public int getGhostColOffset() {
+        return ghostColOffset;
+    }
+
+    public boolean isPowerupActive() {
+        return powerupActive;
+    }
+
+    public int getPowerupX() {
+        return powerupX;
+    }
+
+    public int getPowerupY() {
+        return powerupY;
+    }
+
+    public PowerUpType getPowerupType() {
+        return powerupType;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public Orientation getOrientation() {
+        return orientation;
+    }
+
+    public int getPreviewCount() {
+        return preview.length;
+    }
+
+    public BubbloidShape getPreviewShape(int i) {
+        return preview[i];
+    }
+}
@@ -1,25 +1,6 @@
 package rodeo.scott.bubbleswerve;
-import java.awt.Color;
-import java.awt.Graphics;
-import java.awt.Point;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.List;
-import java.awt.*;
-import javax.swing.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Represents the core logic of the Bubbleswerve game, including grid management, 
@@ -31,31 +12,36 @@ public class Game {
 
 	public Grid grid; // The game grid for storing pieces and empty cells.
 	public AbstractBubbloid piece; // The currently active game piece.
-	public Engine engine; // Reference to the Engine instance managing the game.
-	private Timer timer; // Timer for managing periodic game updates.
+	private ShapeRegistry shapes; // The shapes that pieces are dealt from.
+	private GameRandom random; // The game's own random source for power-ups; its seed also deals the pieces.
+	private final BubbloidPool pool = new BubbloidPool(); // Recycles the pieces that locked or were thrown away.
+	private final PieceQueue preview = new PieceQueue(PieceQueue.DEFAULT_SIZE, pool); // Upcoming pieces, built ahead of time.
+	private final List<GameListener> listeners = new CopyOnWriteArrayList<>(); // Observers, e.g. the Swing front end.
+	private GameLoop loop; // Fixed-timestep loop running the game on its own thread.
+	private volatile FrameSnapshot snapshot; // Latest frame published for rendering.
+	private GameJournal journal; // Records the applied commands, or null when not recording.
+	private Autosaver autosaver; // Saves the game in the background, or null when not saving.
+	private GravityCurve gravityCurve = GravityCurve.getDefault(); // Gravity interval of each level.
+	private long gameNanos = 0; // Game time: loop time spent unpaused, advanced one step at a time.
+	private long nextGravityNanos = 0; // Game time of the next gravity step.
 	public boolean gameIsOver; // Flag indicating if the game has ended.
 	public boolean isPaused = false; // Indicates if the game is paused.
 	public boolean powerupActive = false; // Flag for active power-up.
 	private int powerupX; // X-coordinate of the active power-up.
 	private int powerupY; // Y-coordinate of the active power-up.
-	private int powerupTickCounter = 0; // Tracks ticks since the power-up spawned.	
+	private int powerupTickCounter = 0; // Tracks ticks since the power-up spawned.
+	private double powerupChance = 0.9; // Chance that spawnPowerUp places a power-up.
+	private int powerupLifetime = 36; // Gravity ticks before an uncollected power-up disappears.
+	private boolean logging = true; // Whether game events are printed to the console.	
 
 	private int score = 0;
 	private int level = 1;
 	private int linesCleared = 0;
+
+	private static final int MAX_GRAVITY_STEPS = 64; // Gravity steps in one loop step before the schedule is reset.
 	
 	public PowerUpType activePowerUpType; // The currently active power-up type.
 	
-	// Colors for additional visual elements.
-    public static Color b1 = new Color(175, 18, 202);
-    public static Color b2 = new Color(101, 216, 246);
-    public static Color b3 = new Color(74, 125, 255);
-    public static Color b4 = new Color(79, 255, 254);
-    public static Color b5 = new Color(230, 56, 174);
-    public static Color b6 = new Color(249, 116, 122);
-    public static Color b7 = new Color(45, 50, 116);
-    public static Color b8 = new Color(99, 32, 178);
-    public static Color b9 = new Color(65, 84, 203);	
 	
     /**
      * Enum for the possible grid orientations.
@@ -79,26 +65,51 @@ public class Game {
     
     /**
      * Constructor for initializing the Game instance.
+     * The game has no user interface of its own: a front end observes it through a
+     * GameListener, and the game loop is only started on request, so the same game
+     * can run in a window or headless.
+     * The game is seeded from the clock.
+     */	
+	public Game() {
+		this(GameRandom.fromClock());
+	}
+
+    /**
+     * Constructs a reproducible game: the same seed and the same inputs always play out
+     * the same way.
+     * 
+     * @param seed The seed of the game's random source.
+     */	
+	public Game(long seed) {
+		this(new GameRandom(seed));
+	}
+
+    /**
+     * Constructs a game drawing pieces and power-ups from the given random source.
      * 
-     * @param engine The engine managing this game instance.
+     * @param random The game's random source; not shared with any other game.
      */	
-	public Game(Engine engine) {
-		this.engine=engine;
-        this.grid = new Grid(engine);
+	public Game(GameRandom random) {
+        this.random = random;
+        this.grid = new Grid();
+        this.loop = new GameLoop(this);
+        this.shapes = ShapeRegistry.getDefault();
 	    gameIsOver = false;
 	    this.score = 0;
 	    this.level = 1;
 	    this.linesCleared = 0;
+	    preview.reset(PieceGenerator.bag(shapes.size()), shapes, random.getSeed(), grid, 0);
 		initializeGame();
 	}
 	    
 	
 	/**
-	 * Initializes the game by starting the timer and preparing the first game piece.
+	 * Initializes the game by preparing the first game piece and the gravity schedule.
 	 */
 	private void initializeGame() {  
-	    timerStart(); // Start the game timer.
 	    gameStart();  // Start the game logic.
+	    publishSnapshot(0); // Give front ends a first frame to paint.
+	    timerStart(); // Schedule the first gravity step.
 	}
 
 	/**
@@ -117,29 +128,282 @@ public class Game {
 	}
 
 	/**
-	 * Starts or restarts the timer for periodic game updates.
+	 * Restarts the gravity countdown.
+	 * The game loop is the only scheduler of the game; there are no other timers.
 	 */
 	void timerStart() {
-	    if (timer == null) {
-	        // Create a new timer that triggers every 500 milliseconds.
-	        timer = new Timer(500, new ActionListener() {
-	            @Override
-	            public void actionPerformed(ActionEvent e) {
-	                if (!isPaused) { // Only update the game if not paused.
-	                    if (isGameOver()) { // Stop the game if it's over.
-	                        timer.stop();
-	                        GameOverScreen();
-	                    } else {
-	                        updateState(); // Update the game state.
-	                        engine.getPanelGame().repaint(); // Refresh the game display.
-	                    }
-	                }
+	    nextGravityNanos = gameNanos + gravityCurve.getIntervalNanos(level); // A full period passes before the next gravity step.
+	}
+
+	/**
+	 * Performs the game's periodic work for one step of the game loop.
+	 * Game time advances by one loop step unless the game is paused or over, and gravity runs
+	 * every time it passes a deadline of the gravity curve. Each deadline is the previous one
+	 * plus the interval of the current level, so the schedule does not drift, and intervals
+	 * shorter than a loop step run gravity several times in one step.
+	 *
+	 * @return True if the game state changed.
+	 */
+	boolean tick() {
+	    if (journal != null) {
+	        journal.tick(loop.getTick());
+	    }
+	    if (autosaver != null) {
+	        autosaver.tick(loop.getTick());
+	    }
+	    if (isPaused || gameIsOver) {
+	        return false;
+	    }
+	    gameNanos += GameLoop.TICK_NANOS;
+
+	    boolean changed = false;
+	    int steps = 0;
+	    while (!gameIsOver && gameNanos - nextGravityNanos >= 0) {
+	        nextGravityNanos += gravityCurve.getIntervalNanos(level);
+	        changed = true;
+
+	        if (isGameOver()) { // Stop the game if it's over.
+	            gameIsOver = true;
+	            GameOverScreen();
+	            for (GameListener listener : listeners) {
+	                listener.gameOver(score);
 	            }
-	        });
-	        timer.start(); // Start the timer.
+	        } else {
+	            updateState(); // Update the game state.
+	        }
+
+	        if (++steps == MAX_GRAVITY_STEPS) {
+	            nextGravityNanos = gameNanos + gravityCurve.getIntervalNanos(level); // Far behind; start over from now.
+	            break;
+	        }
+	    }
+	    preview.fill(); // Build the pieces dealt this step, now that the step's logic is done.
+	    return changed;
+	}
+
+	/**
+	 * Gets the upcoming pieces. Must be read on the loop thread; front ends use the preview
+	 * of the FrameSnapshot instead.
+	 *
+	 * @return The preview queue.
+	 */
+	public PieceQueue getPieceQueue() {
+	    return preview;
+	}
+
+	/**
+	 * Gets the pool the game's pieces are recycled through, e.g. to check that a long session
+	 * has stopped building new pieces.
+	 *
+	 * @return The piece pool.
+	 */
+	public BubbloidPool getPiecePool() {
+	    return pool;
+	}
+
+	/**
+	 * Sets the rule dealing the pieces; by default a bag of every shape. The upcoming pieces
+	 * are dealt again from the next one, and the active piece is kept. A generator keeps state
+	 * for the game it is set on, so it must not be shared with another game. Journals and saves
+	 * hold the piece count only, so they replay and restore with the generator of the game.
+	 *
+	 * @param generator The piece generator.
+	 */
+	public void setPieceGenerator(PieceGenerator generator) {
+	    preview.reset(generator, shapes, random.getSeed(), grid, preview.getDealt());
+	}
+
+	/**
+	 * Gets the gravity curve used to pace the game.
+	 *
+	 * @return The gravity interval of each level.
+	 */
+	public GravityCurve getGravityCurve() {
+	    return gravityCurve;
+	}
+
+	/**
+	 * Sets the gravity curve used to pace the game. Takes effect from the next gravity step.
+	 *
+	 * @param gravityCurve The gravity interval of each level.
+	 */
+	public void setGravityCurve(GravityCurve gravityCurve) {
+	    this.gravityCurve = gravityCurve;
+	}
+
+	/**
+	 * Captures the current state for rendering and hands it to the listeners.
+	 * Called on the loop thread after every step that changed the game.
+	 *
+	 * @param tick The step of the game loop.
+	 */
+	void publishSnapshot(long tick) {
+	    FrameSnapshot frame = new FrameSnapshot(this, tick);
+	    snapshot = frame;
+	    for (GameListener listener : listeners) {
+	        listener.frameReady(frame);
+	    }
+	}
+
+	/**
+	 * Registers an observer of the game. Safe to call from any thread.
+	 *
+	 * @param listener The listener to add.
+	 */
+	public void addListener(GameListener listener) {
+	    listeners.add(listener);
+	}
+
+	/**
+	 * Unregisters an observer of the game.
+	 *
+	 * @param listener The listener to remove.
+	 */
+	public void removeListener(GameListener listener) {
+	    listeners.remove(listener);
+	}
+
+	/**
+	 * Gets the latest frame published by the game loop. Safe to call from any thread.
+	 *
+	 * @return The most recent snapshot of the game.
+	 */
+	public FrameSnapshot getSnapshot() {
+	    return snapshot;
+	}
+
+	/**
+	 * Gets the game's random source, e.g. to read its seed or save its state.
+	 *
+	 * @return The random source.
+	 */
+	public GameRandom getRandom() {
+	    return random;
+	}
+
+	/**
+	 * Gets the loop running this game, used to start the simulation thread and to submit input.
+	 *
+	 * @return The game loop.
+	 */
+	public GameLoop getLoop() {
+	    return loop;
+	}
+
+	/**
+	 * Starts recording the commands applied to this game. Must be set before the loop starts,
+	 * or from the loop thread.
+	 *
+	 * @param journal The journal to append to, or null to stop recording.
+	 */
+	public void setJournal(GameJournal journal) {
+	    this.journal = journal;
+	}
+
+	/**
+	 * Gets the journal recording this game.
+	 *
+	 * @return The journal, or null when not recording.
+	 */
+	public GameJournal getJournal() {
+	    return journal;
+	}
+
+	/**
+	 * Starts saving the game in the background. Must be set before the loop starts, or from
+	 * the loop thread.
+	 *
+	 * @param autosaver The autosaver for this game, or null to stop saving.
+	 */
+	public void setAutosaver(Autosaver autosaver) {
+	    this.autosaver = autosaver;
+	}
+
+	/**
+	 * Gets the autosaver of this game.
+	 *
+	 * @return The autosaver, or null when not saving.
+	 */
+	public Autosaver getAutosaver() {
+	    return autosaver;
+	}
+
+	/**
+	 * Saves the complete state of the game. Must be called on the loop thread, or while the
+	 * loop is not running.
+	 *
+	 * @return A copy of the state, independent of the game.
+	 */
+	public GameState saveState() {
+	    GameState state = new GameState();
+	    state.tick = loop.getTick();
+	    state.seed = random.getSeed();
+	    state.randomState = random.getState();
+	    state.gridRotation = grid.getRotation();
+	    state.cells = new byte[grid.getCellCount()];
+	    grid.copyPhysicalCells(state.cells);
+	    if (piece != null) {
+	        state.pieceShape = piece.getShape().getId();
+	        state.pieceRotation = piece.getRotation();
+	        state.pieceRow = piece.getPivotRow();
+	        state.pieceCol = piece.getPivotCol();
+	    }
+	    state.gameNanos = gameNanos;
+	    state.nextGravityNanos = nextGravityNanos;
+	    state.gameOver = gameIsOver;
+	    state.paused = isPaused;
+	    state.orientation = currentOrientation;
+	    state.powerupActive = powerupActive;
+	    state.powerupX = powerupX;
+	    state.powerupY = powerupY;
+	    state.powerupTickCounter = powerupTickCounter;
+	    state.powerupType = activePowerUpType;
+	    state.score = score;
+	    state.level = level;
+	    state.linesCleared = linesCleared;
+	    state.piecesDealt = preview.getDealt();
+	    return state;
+	}
+
+	/**
+	 * Puts the game back into a saved state. Must be called on the loop thread, or while the
+	 * loop is not running. A new snapshot is not published; the caller decides when to show one.
+	 *
+	 * @param state The state to restore; it is not modified and can be restored again.
+	 */
+	public void restoreState(GameState state) {
+	    if (state.pieceShape >= shapes.size()) {
+	        throw new IllegalArgumentException("Saved piece has unknown shape id " + state.pieceShape);
+	    }
+	    grid.restore(state.gridRotation, state.cells);
+	    if (random.getSeed() != state.seed) {
+	        random = new GameRandom(state.seed);
+	    }
+	    random.setState(state.randomState);
+	    preview.reset(preview.getGenerator(), shapes, state.seed, grid, state.piecesDealt);
+	    if (piece != null) {
+	        pool.release(piece);
+	    }
+	    if (state.pieceShape < 0) {
+	        piece = null;
 	    } else {
-	        timer.restart(); // Restart the timer if it already exists.
+	        piece = pool.acquire(shapes.get(state.pieceShape), grid);
+	        piece.place(state.pieceRotation, state.pieceRow, state.pieceCol);
 	    }
+	    gameNanos = state.gameNanos;
+	    nextGravityNanos = state.nextGravityNanos;
+	    gameIsOver = state.gameOver;
+	    isPaused = state.paused;
+	    currentOrientation = state.orientation;
+	    powerupActive = state.powerupActive;
+	    powerupX = state.powerupX;
+	    powerupY = state.powerupY;
+	    powerupTickCounter = state.powerupTickCounter;
+	    activePowerUpType = state.powerupType;
+	    score = state.score;
+	    level = state.level;
+	    linesCleared = state.linesCleared;
+	    loop.setTick(state.tick);
 	}
 
 	/**
@@ -147,13 +411,11 @@ public class Game {
 	 * Clears the grid, resets the score, level, and orientation, and restarts the timer.
 	 */
 	public void gameBoardReset() {
-	    System.out.println("gameBoardReset()");
+	    log("gameBoardReset()");
 
 	    this.gameIsOver = false; // Reset the game-over flag.
 	    
-	    this.grid.HEIGHT = 22; // Set the grid height.
-	    this.grid.WIDTH = 12;  // Set the grid width.
-	    this.grid = new Grid(engine); // Reinitialize the grid.
+	    this.grid.reset(); // Empty the grid in place and turn it back upright.
 	    this.score = 0; // Reset the score.
 	    this.level = 1; // Reset the level.
 	    this.linesCleared = 0; // Reset the cleared lines counter.
@@ -164,18 +426,6 @@ public class Game {
 
     
 		
-	/**
-	 * Draws the game state on the provided Graphics context.
-	 *
-	 * @param g The Graphics object used to render the game grid and active piece.
-	 */
-	public void draw(Graphics g) {
-	    grid.draw(g); // Draw the grid and all locked pieces.
-	    if (piece != null) {
-	        piece.draw(g); // Draw the currently active piece.
-	    }
-	}
-
 	/**
 	 * Moves the active piece in the specified direction.
 	 *
@@ -194,7 +444,6 @@ public class Game {
 	    }
 
 	    updatePiece(); // Update the game state after moving the piece.
-	    this.engine.getPanelGame().update(); // Refresh the game panel.
 	    grid.checkRows(); // Check for and handle full rows.
 	}
 
@@ -215,7 +464,7 @@ public class Game {
 	 * Displays the game-over screen and stops the game.
 	 */
 	public void GameOverScreen() {
-	    System.out.println("Game Over!"); // Log the game-over message to the console.
+	    log("Game Over!"); // Log the game-over message to the console.
 	}
 
 	/**
@@ -231,17 +480,107 @@ public class Game {
 	    }
 	}
 
+	/**
+	 * Applies a player or menu command. Called by the game loop for every queued command.
+	 * The arrow keys act relative to the board: the key pointing along gravity soft drops,
+	 * the key pointing against it rotates the piece, and the other two move it sideways.
+	 *
+	 * @param command The command to apply.
+	 */
+	public void applyCommand(Command command) {
+	    if (journal != null) {
+	        journal.record(command, loop.getTick());
+	    }
+	    switch (command) {
+	        case TOGGLE_PAUSE:
+	            togglePause();
+	            return;
+	        case PAUSE:
+	            pauseGame();
+	            return;
+	        case RESUME:
+	            resumeGame();
+	            return;
+	        case RESTART:
+	            gameRestart();
+	            return;
+	        case ROTATE_BOARD:
+	            rotateBoardClockwise();
+	            return;
+	        default:
+	            break;
+	    }
+
+	    if (isPaused) {
+	        return; // Piece controls are ignored while paused.
+	    }
+
+	    switch (command) {
+	        case HARD_DROP:
+	            hardDrop();
+	            return;
+	        case ROTATE_COUNTERCLOCKWISE:
+	            handleRotate(1);
+	            return;
+	        default:
+	            break;
+	    }
+
+	    // Map the arrow onto the board's orientation.
+	    Direction arrow = toDirection(command);
+	    Direction gravity = getGravity();
+	    if (arrow == gravity) {
+	        softDrop();
+	    } else if (arrow == opposite(gravity)) {
+	        handleRotate(0); // Rotate clockwise.
+	    } else {
+	        handleMove(arrow);
+	    }
+	    checkPowerUpCollection(); // Check for power-up collision
+	}
+
+	// Direction of an arrow command
+	private static Direction toDirection(Command command) {
+	    switch (command) {
+	        case LEFT:
+	            return Direction.LEFT;
+	        case RIGHT:
+	            return Direction.RIGHT;
+	        case UP:
+	            return Direction.UP;
+	        case DOWN:
+	            return Direction.DOWN;
+	        default:
+	            throw new IllegalArgumentException("Not an arrow command: " + command);
+	    }
+	}
+
+	// Direction opposite to a movement direction
+	private static Direction opposite(Direction direction) {
+	    switch (direction) {
+	        case LEFT:
+	            return Direction.RIGHT;
+	        case RIGHT:
+	            return Direction.LEFT;
+	        case UP:
+	            return Direction.DOWN;
+	        default:
+	            return Direction.UP;
+	    }
+	}
+
 	/**
 	 * Removes the currently active piece from the grid.
 	 */
 	private void removeActivePiece() {
 	    if (piece != null) {
 	        // Clear the bubbles of the current piece from the grid.
-	        for (Bubble square : piece.getBubbles()) {
-	            grid.clearCell(square.getRow(), square.getCol());
+	        for (int i = 0; i < piece.getCellCount(); i++) {
+	            grid.clearCell(piece.getCellRow(i), piece.getCellCol(i));
 	        }
 
-	        // Remove the reference to the active piece.
+	        // Return the active piece to the pool.
+	        pool.release(piece);
 	        piece = null;
 	    }
 	}
@@ -296,8 +635,9 @@ public class Game {
 
 	    removeActivePiece(); // Remove the active piece from the grid.
 	    spawnNewPiece(); // Spawn a new piece to match the new grid orientation.
-	    engine.getPanelGame().update(); // Refresh the game panel to reflect changes.
-	    System.out.println("Board rotated to: " + currentOrientation); // Log the new orientation.
+	    if (logging) { // Checked first: the message would be built on every lock.
+	        log("Board rotated to: " + currentOrientation); // Log the new orientation.
+	    }
 	}
 
 	/**
@@ -322,7 +662,9 @@ public class Game {
 	    }
 
 	    level = (score / 1000) + 1; // Increase the level every 1000 points.
-	    System.out.println("Current Level: " + level); // Log the updated level.
+	    if (logging) {
+	        log("Current Level: " + level); // Log the updated level.
+	    }
 	}
 
 	/**
@@ -338,7 +680,7 @@ public class Game {
 	private void deactivatePowerUp() {
 	    powerupActive = false; // Mark the power-up as inactive.
 	    powerupTickCounter = 0; // Reset the tick counter for power-ups.
-	    System.out.println("Power-up disappeared after 10 ticks."); // Log power-up expiration.
+	    log("Power-up disappeared after 10 ticks."); // Log power-up expiration.
 	}
 
 	/**
@@ -350,12 +692,11 @@ public class Game {
 	    // Handle the countdown for an active power-up.
 	    if (powerupActive) {
 	        powerupTickCounter++;
-	        if (powerupTickCounter >= 36) { // Deactivate the power-up after 36 ticks.
+	        if (powerupTickCounter >= powerupLifetime) { // Deactivate the power-up after its lifetime.
 	            deactivatePowerUp();
 	        }
 	    }
 
-	    engine.getPanelGame().update(); // Refresh the game panel.
 	    checkPowerUpCollection(); // Check if a power-up has been collected.
 	}
 
@@ -364,7 +705,7 @@ public class Game {
 	 */
 	void pauseGame() {
 	    isPaused = true;
-	    System.out.println("Game paused."); // Log the paused state.
+	    log("Game paused."); // Log the paused state.
 	}
 
 	/**
@@ -382,19 +723,25 @@ public class Game {
 	 */
 	private void lockPiece() {
 	    if (piece != null) {
-	        Point[] pieceLocations = piece.getLocations();
-	        Color pieceColor = piece.getColor();
+	        int pieceColor = piece.getColor();
 
 	        // Lock each part of the piece into the grid.
-	        for (Point point : pieceLocations) {
-	            grid.set((int) point.getY(), (int) point.getX(), pieceColor);
+	        for (int i = 0; i < piece.getCellCount(); i++) {
+	            grid.set(piece.getCellRow(i), piece.getCellCol(i), pieceColor);
 	        }
 
+	        pool.release(piece); // The piece lives on as grid cells; recycle the object.
 	        piece = null; // Clear the current piece reference.
 
 	        // Clear full rows and update the score.
-	        int clearedLines = grid.clearFullRows(currentOrientation);
+	        int clearedLines = grid.clearFullRows();
 	        updateScore(clearedLines);
+	        linesCleared += clearedLines;
+	        if (clearedLines > 0) {
+	            for (GameListener listener : listeners) {
+	                listener.linesCleared(clearedLines);
+	            }
+	        }
 
 	        if (isGameOver()) {
 	            GameOverScreen(); // End the game if the board is full.
@@ -452,36 +799,17 @@ public class Game {
 	            break;
 	    }
 
-	    // Randomly select and instantiate a new game piece.
-	    int random = (int) (Math.random() * 9 + 1);
-	    switch (random) {
-	        case 1:
-	            piece = new BubbloidBar1(initialRow, initialColumn, grid, b1);
-	            break;
-	        case 2:
-	            piece = new BubbloidBar3(initialRow, initialColumn, grid, b2);
-	            break;
-	        case 3:
-	            piece = new BubbloidL5(initialRow, initialColumn, grid, b3);
-	            break;
-	        case 4:
-	            piece = new BubbloidBar2(initialRow, initialColumn, grid, b4);
-	            break;
-	        case 5:
-	            piece = new BubbloidCross5(initialRow, initialColumn, grid, b5);
-	            break;
-	        case 6:
-	            piece = new BubbloidV3(initialRow, initialColumn, grid, b6);
-	            break;
-	        case 7:
-	            piece = new BubbloidJ5(initialRow, initialColumn, grid, b7);
-	            break;
-	        case 8:
-	            piece = new BubbloidRectangle6(initialRow, initialColumn, grid, b8);
-	            break;
-	        case 9:
-	            piece = new BubbloidVDiscon2(initialRow, initialColumn, grid, b9);
-	            break;
+	    if (piece != null) {
+	        pool.release(piece); // Replaced without locking, e.g. on a restart.
+	    }
+
+	    // Take the next piece, built ahead of time, and move it to the spawn position.
+	    AbstractBubbloid next = preview.take();
+	    BubbloidShape shape = next.getShape();
+	    next.place(0, initialRow + shape.getPivotRow(), initialColumn + shape.getPivotCol());
+	    piece = next;
+	    for (GameListener listener : listeners) {
+	        listener.pieceSpawned(shape);
 	    }
 	}
 
@@ -524,32 +852,31 @@ public class Game {
 	                break;
 	        }
 	    }
-	    engine.getPanelGame().update(); // Refresh the game panel.
 	}
 
 	/**
 	 * Spawns a new power-up at a random, unoccupied position on the grid.
 	 */
 	public void spawnPowerUp() {
-	    if (!powerupActive && Math.random() < 0.9) { // 90% chance to spawn a power-up.
+	    if (!powerupActive && random.nextDouble() < powerupChance) { // 90% chance to spawn a power-up by default.
 	        int attempts = 0; // Track the number of attempts to find a free square.
 	        final int maxAttempts = 100; // Limit the number of attempts.
 
 	        // Find a random unoccupied position for the power-up.
 	        do {
-	            powerupX = (int) (Math.random() * (grid.WIDTH - 1)) + 1;
-	            powerupY = (int) (Math.random() * (grid.HEIGHT - 4)) + 4;
+	            powerupX = random.nextInt(grid.WIDTH - 1) + 1;
+	            powerupY = random.nextInt(grid.HEIGHT - 4) + 4;
 	            attempts++;
 	        } while (grid.isSet(powerupY, powerupX) && attempts < maxAttempts);
 
 	        if (attempts >= maxAttempts) {
-	            System.out.println("Failed to find an empty square for power-up after " + maxAttempts + " attempts.");
+	            log("Failed to find an empty square for power-up after " + maxAttempts + " attempts.");
 	            return;
 	        }
 
 	        // Randomly select a power-up type.
 	        PowerUpType[] powerUpTypes = PowerUpType.values();
-	        int randomIndex = (int) (Math.random() * powerUpTypes.length);
+	        int randomIndex = random.nextInt(powerUpTypes.length);
 
 	        activePowerUpType = powerUpTypes[randomIndex];
 	        powerupActive = true;
@@ -563,7 +890,8 @@ public class Game {
 	private void activatePowerUp() {
 	    switch (activePowerUpType) {
 	        case CLEAR_LINE:
-	            grid.deleteRow(19); // Clears the bottom row of the grid.
+	            // Clears row 19, or the last row when the board is turned on its side.
+	            grid.deleteRow(Math.min(19, grid.HEIGHT - 1));
 	            break;
 	        case SLOW_SPEED:
 	            // Implementation for slowing the game speed goes here.
@@ -575,9 +903,12 @@ public class Game {
 	            // Implementation for granting an extra life goes here.
 	            break;
 	        default:
-	            System.out.println("Unknown power-up type: " + activePowerUpType);
+	            log("Unknown power-up type: " + activePowerUpType);
+	    }
+	    log("Activated power-up: " + activePowerUpType); // Log the activation.
+	    for (GameListener listener : listeners) {
+	        listener.powerUpActivated(activePowerUpType);
 	    }
-	    System.out.println("Activated power-up: " + activePowerUpType); // Log the activation.
 	}
 
 	/**
@@ -586,19 +917,11 @@ public class Game {
 	void checkPowerUpCollection() {
 	    if (!powerupActive || piece == null) return;
 
-	    Point[] pieceLocations = piece.getLocations();
-
-	    for (Point block : pieceLocations) {
-	        int blockX = (int) block.getY();
-	        int blockY = (int) block.getX();
-
-	        // Check if the piece overlaps with the power-up
-	        if (blockX == powerupX && blockY == powerupY) {
-	            activatePowerUp(); 
-	            powerupActive = false; // Deactivate the power-up after collection
-	            //System.out.println("Power-up collected at: (" + powerupX + ", " + powerupY + ")");
-	            break;
-	        }
+	    // Check if the piece overlaps with the power-up (x is the column, y the row)
+	    if (piece.intersects(powerupX, powerupY)) {
+	        activatePowerUp(); 
+	        powerupActive = false; // Deactivate the power-up after collection
+	        //System.out.println("Power-up collected at: (" + powerupX + ", " + powerupY + ")");
 	    }
 	}
 
@@ -704,44 +1027,89 @@ public class Game {
 	}
 
 
+	/**
+	 * Gets the direction pieces fall in for the current orientation.
+	 *
+	 * @return The direction of gravity in the player's view.
+	 */
+	public Direction getGravity() {
+	    switch (currentOrientation) {
+	        case UP:
+	            return Direction.UP;
+	        case LEFT:
+	            return Direction.LEFT;
+	        case RIGHT:
+	            return Direction.RIGHT;
+	        default:
+	            return Direction.DOWN;
+	    }
+	}
+
+	/**
+	 * Gets how far the active piece would fall if it were hard dropped now, i.e. the
+	 * offset of its ghost in the direction of gravity.
+	 *
+	 * @return The number of cells to the landing position, or 0 if there is no active piece.
+	 */
+	public int getGhostDistance() {
+	    return piece == null ? 0 : piece.getDropDistance();
+	}
+
+	/**
+	 * Finds the first step of a drop at which the active piece would pass over the power-up.
+	 *
+	 * @param gravity  The direction of the drop.
+	 * @param distance The length of the drop.
+	 * @return The step, from 1 to distance, or 0 if the power-up is not on the path.
+	 */
+	private int findPowerUpOnPath(Direction gravity, int distance) {
+	    if (!powerupActive) return 0;
+
+	    for (int step = 1; step <= distance; step++) {
+	        // Rather than moving the piece, move the power-up back up the path by the same amount.
+	        switch (gravity) {
+	            case DOWN:
+	                if (piece.intersects(powerupX, powerupY - step)) return step;
+	                break;
+	            case UP:
+	                if (piece.intersects(powerupX, powerupY + step)) return step;
+	                break;
+	            case LEFT:
+	                if (piece.intersects(powerupX + step, powerupY)) return step;
+	                break;
+	            case RIGHT:
+	                if (piece.intersects(powerupX - step, powerupY)) return step;
+	                break;
+	        }
+	    }
+	    return 0;
+	}
+
 	/**
 	 * Performs a hard drop, moving the active piece as far as possible in the current orientation.
+	 * The landing position is computed from the grid's height map in one go; the power-up is still
+	 * collected if it lies anywhere on the swept path.
 	 * Awards points based on the number of cells dropped and locks the piece in place.
 	 */
 	public void hardDrop() {
+	    if (piece == null) return;
+
+	    Direction gravity = getGravity();
+	    int distance = piece.getDropDistance();
 	    int cellsDropped = 0;
 
-	    switch (currentOrientation) {
-	        case DOWN:
-	            while (piece != null && piece.canMove(Direction.DOWN)) {
-	                piece.move(Direction.DOWN);
-	                cellsDropped++;
-	                checkPowerUpCollection();
-	            }
-	            break;
-	        case UP:
-	            while (piece != null && piece.canMove(Direction.UP)) {
-	                piece.move(Direction.UP);
-	                cellsDropped++;
-	                checkPowerUpCollection();
-	            }
-	            break;
-	        case LEFT:
-	            while (piece != null && piece.canMove(Direction.LEFT)) {
-	                piece.move(Direction.LEFT);
-	                cellsDropped++;
-	                checkPowerUpCollection();
-	            }
-	            break;
-	        case RIGHT:
-	            while (piece != null && piece.canMove(Direction.RIGHT)) {
-	                piece.move(Direction.RIGHT);
-	                cellsDropped++;
-	                checkPowerUpCollection();
-	            }
-	            break;
+	    // Stop on the power-up first, since collecting it can change the board below the piece.
+	    int step = findPowerUpOnPath(gravity, distance);
+	    if (step > 0) {
+	        piece.drop(gravity, step);
+	        cellsDropped += step;
+	        checkPowerUpCollection();
+	        distance = piece.getDropDistance();
 	    }
 
+	    piece.drop(gravity, distance);
+	    cellsDropped += distance;
+
 	    score += cellsDropped * 2; // 2 points per hard drop cell
 	    lockPiece(); // Lock the piece after a hard drop
 	}
@@ -755,6 +1123,71 @@ public class Game {
 	    return score;
 	}
 
+	/**
+	 * Retrieves the number of lines cleared since the game started.
+	 *
+	 * @return The cleared line count.
+	 */
+	public int getLinesCleared() {
+	    return linesCleared;
+	}
+
+	/**
+	 * Retrieves the Zobrist hash of the current position: the occupied cells, the orientation
+	 * of the board and the active piece. The board part is kept up to date by the grid, so this
+	 * costs one key lookup for the piece.
+	 *
+	 * @return The position hash; equal positions have equal hashes.
+	 */
+	public long getPositionHash() {
+	    AbstractBubbloid active = piece;
+	    long hash = grid.getHash();
+	    if (active != null) {
+	        hash ^= Zobrist.piece(active.getShape().getId(), active.getRotation(), active.getPivotRow(), active.getPivotCol());
+	    }
+	    return hash;
+	}
+
+	/**
+	 * Sets the chance that spawnPowerUp places a power-up.
+	 *
+	 * @param powerupChance The probability, from 0 to 1.
+	 */
+	public void setPowerupChance(double powerupChance) {
+	    if (powerupChance < 0 || powerupChance > 1) {
+	        throw new IllegalArgumentException("Power-up chance must be between 0 and 1: " + powerupChance);
+	    }
+	    this.powerupChance = powerupChance;
+	}
+
+	/**
+	 * Sets how many gravity ticks an uncollected power-up stays on the board.
+	 *
+	 * @param powerupLifetime The lifetime in gravity ticks.
+	 */
+	public void setPowerupLifetime(int powerupLifetime) {
+	    if (powerupLifetime <= 0) {
+	        throw new IllegalArgumentException("Power-up lifetime must be positive: " + powerupLifetime);
+	    }
+	    this.powerupLifetime = powerupLifetime;
+	}
+
+	/**
+	 * Turns the console log of game events on or off, e.g. for batch simulations.
+	 *
+	 * @param logging True to print game events.
+	 */
+	public void setLogging(boolean logging) {
+	    this.logging = logging;
+	}
+
+	// Prints a game event to the console, unless logging is off
+	private void log(String message) {
+	    if (logging) {
+	        System.out.println(message);
+	    }
+	}
+
 	/**
 	 * Retrieves the current game level.
 	 *
@@ -781,9 +1214,9 @@ public class Game {
 	    isPaused = !isPaused;
 
 	    if (isPaused) {
-	        System.out.println("Game paused.");
+	        log("Game paused.");
 	    } else {
-	        System.out.println("Game resumed.");
+	        log("Game resumed.");
 	    }
 	}
 
@@ -799,7 +1232,7 @@ public class Game {
 
 	void resumeGame() {
 	    isPaused = false;
-	    System.out.println("Game resumed."); // Optional log
+	    log("Game resumed."); // Optional log
 	    timerStart(); // Ensure the timer is running
 	}
 	
@@ -0,0 +1,415 @@
+package rodeo.scott.bubbleswerve;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Append-only binary record of a game: its seed and every command applied, each stamped with
+ * the loop tick it was applied on. Together with the seed this reproduces the game exactly.
+ *
+ * File layout: the 4-byte MAGIC, a VERSION byte and the seed as 8 big-endian bytes, then one
+ * unsigned varint per record holding (code | ticks << CODE_BITS), where code is the Command's
+ * ordinal, or END for the last record, and ticks is the number of tick boundaries since the
+ * previous record. A command applied on the same tick as the one before it takes one byte.
+ *
+ * Records are encoded on the game loop thread into a batch buffer; full batches, and the open
+ * batch about once a second, are handed to a background thread that writes them, so the loop
+ * never waits for the disk. Must only be written from the loop thread.
+ *
+ * @author https://scott.rodeo/
+ */
+public class GameJournal {
+
+    public static final int MAGIC = 0x42534A4E;    // "BSJN".
+    public static final int VERSION = 2;           // Layout version written after the magic; 2 deals pieces with a PieceGenerator.
+    public static final int CODE_BITS = 5;         // Low bits of a record holding its code.
+    public static final int END = (1 << CODE_BITS) - 1; // Code of the record closing the journal.
+
+    private static final int BATCH_BYTES = 4096;   // Size of a batch buffer; records are at most 10 bytes.
+    private static final int MAX_RECORD_BYTES = 10; // Longest varint of a 64-bit value.
+    private static final int FLUSH_TICKS = GameLoop.TICKS_PER_SECOND; // Ticks an open batch waits before being written.
+
+    static {
+        if (Command.values().length >= END) {
+            throw new IllegalStateException("Too many commands for " + CODE_BITS + "-bit journal codes");
+        }
+    }
+
+    /**
+     * A filled part of a batch buffer on its way to the writer thread.
+     */
+    private static final class Batch {
+        final byte[] bytes = new byte[BATCH_BYTES];
+        int length;
+    }
+
+    private static final Batch CLOSE = new Batch(); // Tells the writer thread to finish.
+
+    /**
+     * The decoded contents of a journal: the seed and the commands with their ticks, in order.
+     */
+    public static final class Recording {
+
+        private final long seed;
+        private final long[] ticks;
+        private final Command[] commands;
+        private final long endTick;
+        private final boolean complete;
+
+        Recording(long seed, long[] ticks, Command[] commands, long endTick, boolean complete) {
+            this.seed = seed;
+            this.ticks = ticks;
+            this.commands = commands;
+            this.endTick = endTick;
+            this.complete = complete;
+        }
+
+        /**
+         * Gets the seed of the recorded game.
+         *
+         * @return The seed.
+         */
+        public long getSeed() {
+            return seed;
+        }
+
+        /**
+         * Gets the number of recorded commands.
+         *
+         * @return The command count.
+         */
+        public int size() {
+            return commands.length;
+        }
+
+        /**
+         * Gets a recorded command.
+         *
+         * @param i Index of the command, from 0 to size() - 1.
+         * @return The command.
+         */
+        public Command getCommand(int i) {
+            return commands[i];
+        }
+
+        /**
+         * Gets the loop tick a recorded command was applied on.
+         *
+         * @param i Index of the command, from 0 to size() - 1.
+         * @return The tick; never less than the tick of the command before.
+         */
+        public long getTick(int i) {
+            return ticks[i];
+        }
+
+        /**
+         * Gets the tick the recording ends on.
+         *
+         * @return The tick of the END record, or of the last command if the journal was cut short.
+         */
+        public long getEndTick() {
+            return endTick;
+        }
+
+        /**
+         * Checks whether the journal was closed properly.
+         *
+         * @return True if the journal ends with an END record.
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+
+        /**
+         * Finds the first command applied on or after a tick.
+         *
+         * @param tick The tick.
+         * @return The index of the command, or size() if there is none.
+         */
+        public int indexOf(long tick) {
+            int low = 0;
+            int high = ticks.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ticks[mid] < tick) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private final OutputStream out;                                           // The journal file.
+    private final BlockingQueue<Batch> pending = new LinkedBlockingQueue<>(); // Batches waiting to be written; unbounded, so handing off never blocks.
+    private final ConcurrentLinkedQueue<Batch> free = new ConcurrentLinkedQueue<>(); // Written batches, for reuse.
+    private final Thread writer;                                              // Writes the pending batches.
+    private final long seed;                                                  // Seed of the recorded game.
+    private Batch batch = new Batch();                                        // Batch being filled by the loop thread.
+    private long lastTick;                                                    // Tick of the previous record.
+    private long flushTick;                                                   // Tick the open batch was last handed off.
+    private long recordCount;                                                 // Records written so far.
+    private volatile IOException failure;                                     // First write error, reported by close().
+    private boolean closed;
+
+    /**
+     * Creates a journal file for a game and starts its writer thread.
+     *
+     * @param path The file to create; an existing file is replaced.
+     * @param seed The seed of the game's random source.
+     * @return The open journal.
+     * @throws IOException If the file cannot be created.
+     */
+    public static GameJournal create(String path, long seed) throws IOException {
+        return new GameJournal(new BufferedOutputStream(new FileOutputStream(path), BATCH_BYTES * 4), seed);
+    }
+
+    /**
+     * Reads a journal file.
+     *
+     * @param path The file to read.
+     * @return The recording.
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalArgumentException If the file is not a journal this version can read.
+     */
+    public static Recording read(String path) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(path))) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Reads a journal from a stream. A journal cut short, for example by a crash, is read up
+     * to its last complete record.
+     *
+     * @param in The stream holding the journal; not closed.
+     * @return The recording.
+     * @throws IOException If the stream cannot be read.
+     * @throws IllegalArgumentException If the stream is not a journal this version can read.
+     */
+    public static Recording read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        long seed;
+        try {
+            if (data.readInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a game journal");
+            }
+            int version = data.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported journal version " + version);
+            }
+            seed = data.readLong();
+        } catch (EOFException e) {
+            throw new IllegalArgumentException("Journal header is incomplete");
+        }
+
+        Command[] codes = Command.values();
+        long[] ticks = new long[256];
+        Command[] commands = new Command[256];
+        int count = 0;
+        long tick = 0;
+        boolean complete = false;
+        while (true) {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = data.read();
+                if (b < 0 || shift > 63) {
+                    break;
+                }
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            if (b < 0 || (b & 0x80) != 0) {
+                break; // End of a journal that was not closed.
+            }
+            int code = (int) (value & END);
+            tick += value >>> CODE_BITS;
+            if (code == END) {
+                complete = true;
+                break;
+            }
+            if (code >= codes.length) {
+                throw new IllegalArgumentException("Unknown journal code " + code + " at record " + count);
+            }
+            if (count == commands.length) {
+                ticks = Arrays.copyOf(ticks, count * 2);
+                commands = Arrays.copyOf(commands, count * 2);
+            }
+            ticks[count] = tick;
+            commands[count] = codes[code];
+            count++;
+        }
+        return new Recording(seed, Arrays.copyOf(ticks, count), Arrays.copyOf(commands, count), tick, complete);
+    }
+
+    /**
+     * Constructs a journal writing to a stream and starts its writer thread.
+     * The header is written immediately.
+     *
+     * @param out  The stream receiving the journal; closed with the journal.
+     * @param seed The seed of the game's random source.
+     */
+    public GameJournal(OutputStream out, long seed) {
+        this.out = out;
+        this.seed = seed;
+
+        byte[] bytes = batch.bytes;
+        int n = 0;
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            bytes[n++] = (byte) (MAGIC >>> shift);
+        }
+        bytes[n++] = (byte) VERSION;
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            bytes[n++] = (byte) (seed >>> shift);
+        }
+        batch.length = n;
+
+        writer = new Thread(this::write, "bubbleswerve-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Gets the seed of the recorded game.
+     *
+     * @return The seed from the header.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the number of records appended so far, the END record included.
+     *
+     * @return The record count.
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Appends a command applied on the given tick. Called on the loop thread.
+     *
+     * @param command The command.
+     * @param tick    The loop tick it was applied on; never less than the previous one.
+     */
+    public void record(Command command, long tick) {
+        append(command.ordinal(), tick);
+    }
+
+    /**
+     * Hands the open batch to the writer thread if it has waited long enough. Called on the loop
+     * thread once per tick, so a crash loses at most about a second of the game.
+     *
+     * @param tick The current loop tick.
+     */
+    public void tick(long tick) {
+        if (tick - flushTick >= FLUSH_TICKS && batch.length > 0) {
+            handOff(tick);
+        }
+    }
+
+    // Encodes one record into the open batch
+    private void append(int code, long tick) {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        if (batch.length > BATCH_BYTES - MAX_RECORD_BYTES) {
+            handOff(tick);
+        }
+        long value = code | ((tick - lastTick) << CODE_BITS);
+        lastTick = tick;
+        byte[] bytes = batch.bytes;
+        int n = batch.length;
+        while ((value & ~0x7FL) != 0) {
+            bytes[n++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[n++] = (byte) value;
+        batch.length = n;
+        recordCount++;
+    }
+
+    // Queues the open batch for writing and starts a new one
+    private void handOff(long tick) {
+        pending.add(batch);
+        Batch next = free.poll();
+        if (next == null) {
+            next = new Batch();
+        }
+        next.length = 0;
+        batch = next;
+        flushTick = tick;
+    }
+
+    // Body of the writer thread: writes batches until told to close
+    private void write() {
+        try {
+            while (true) {
+                Batch next = pending.take();
+                if (next == CLOSE) {
+                    break;
+                }
+                if (failure == null) {
+                    try {
+                        out.write(next.bytes, 0, next.length);
+                        if (pending.isEmpty()) {
+                            out.flush(); // Reach the file between bursts.
+                        }
+                    } catch (IOException e) {
+                        failure = e;
+                        System.out.println("Journal write failed: " + e.getMessage());
+                    }
+                }
+                free.add(next);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Appends the END record, writes everything still buffered and closes the file.
+     * Must be called on the loop thread, or after the loop has stopped.
+     *
+     * @param tick The loop tick the recording ends on.
+     * @throws IOException If any part of the journal could not be written.
+     */
+    public void close(long tick) throws IOException {
+        if (closed) {
+            return;
+        }
+        append(END, tick);
+        closed = true;
+        pending.add(batch);
+        pending.add(CLOSE);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package rodeo.scott.bubbleswerve;
+
+/**
+ * Observer of a Game, such as the Swing front end.
+ * The game core never calls into a user interface; it reports what happened through the
+ * listeners registered with Game.addListener. Listeners are called on the thread running the
+ * game (the game loop thread when the game runs in real time), so they should return quickly
+ * and hand any UI work to the Swing thread.
+ *
+ * @author https://scott.rodeo/
+ */
+public interface GameListener {
+
+    /**
+     * Called after each step that changed the game, with a snapshot of the new state.
+     *
+     * @param frame The new frame.
+     */
+    void frameReady(FrameSnapshot frame);
+
+    /**
+     * Called when a new active piece is dealt.
+     *
+     * @param shape The shape of the new piece.
+     */
+    default void pieceSpawned(BubbloidShape shape) {
+    }
+
+    /**
+     * Called when locking a piece cleared full lines.
+     *
+     * @param lines The number of lines cleared at once.
+     */
+    default void linesCleared(int lines) {
+    }
+
+    /**
+     * Called when the active piece collects a power-up.
+     *
+     * @param type The power-up that was activated.
+     */
+    default void powerUpActivated(Game.PowerUpType type) {
+    }
+
+    /**
+     * Called once when the game ends.
+     *
+     * @param score The final score.
+     */
+    default void gameOver(int score) {
+    }
+}
@@ -0,0 +1,242 @@
+package rodeo.scott.bubbleswerve;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fixed-timestep simulation loop of a Game, running on a thread of its own.
+ * All changes to the game happen on this thread: the loop advances the game by one step
+ * every TICK_NANOS, applies the commands submitted by the Swing event dispatch thread (key
+ * bindings and menu) in one batch at the start of a step, and publishes a FrameSnapshot
+ * whenever the game changed. Painting reads the snapshot and never touches the game, so a
+ * slow frame no longer delays gravity or input.
+ *
+ * The loop can also be stepped by hand, without its thread, to run the game faster than real
+ * time for replays and bots.
+ *
+ * @author https://scott.rodeo/
+ */
+public class GameLoop implements Runnable {
+
+    public static final int TICKS_PER_SECOND = 60; // Simulation rate.
+    public static final long TICK_NANOS = 1_000_000_000L / TICKS_PER_SECOND; // Length of one step.
+    private static final int MAX_CATCH_UP = 5; // Steps run back to back after a stall before the loop skips ahead.
+    private static final int INPUT_CAPACITY = 256; // Commands that can wait for a step.
+
+    private final Game game;                                        // The game being simulated.
+    private final InputQueue input = new InputQueue(INPUT_CAPACITY); // Commands waiting for the next step.
+    private final InputQueue.Handler applier = this::apply;         // Applies drained commands to the game.
+    private volatile boolean running;                               // Cleared to stop the thread.
+    private Thread thread;                                          // The simulation thread, while running.
+    private long tick;                                              // Number of steps taken so far.
+    private boolean publishing = true;                              // Whether steps publish snapshots.
+    private volatile InputPolicy autopilot;                         // Plays the game from the loop thread, or null.
+    private long stepNanos;                                         // Start time of the current step.
+
+    // Queueing delay of applied commands, from submit() to the step that applied them.
+    private volatile long commandCount;
+    private volatile long totalDelayNanos;
+    private volatile long maxDelayNanos;
+
+    /**
+     * Constructs a loop for the given game. The loop does not run until start() is called.
+     *
+     * @param game The game to simulate.
+     */
+    public GameLoop(Game game) {
+        this.game = game;
+    }
+
+    /**
+     * Starts the simulation thread, if it is not already running.
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, "bubbleswerve-loop");
+        thread.setDaemon(true); // Do not keep the JVM alive once the window is closed.
+        thread.start();
+    }
+
+    /**
+     * Stops the simulation thread and waits for its current step to finish. The game keeps its
+     * state and can still be stepped by hand.
+     */
+    public synchronized void stop() {
+        running = false;
+        Thread stopping = thread;
+        if (stopping != null) {
+            LockSupport.unpark(stopping);
+            thread = null;
+            if (stopping != Thread.currentThread()) {
+                try {
+                    stopping.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Queues a command for the start of the next step. Must only be called from the
+     * Swing event dispatch thread, the queue's single producer.
+     *
+     * @param command The command.
+     * @return True if the command was queued, false if it was dropped because the queue is full.
+     */
+    public boolean submit(Command command) {
+        if (!input.offer(command, System.nanoTime())) {
+            System.out.println("Input queue full, dropped " + command);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether commands are waiting for the next step.
+     *
+     * @return True if at least one command is queued.
+     */
+    public boolean hasPendingInput() {
+        return !input.isEmpty();
+    }
+
+    /**
+     * Gets the number of commands applied so far.
+     *
+     * @return The command count.
+     */
+    public long getCommandCount() {
+        return commandCount;
+    }
+
+    /**
+     * Gets the average time commands waited between submit() and the step that applied them.
+     *
+     * @return The average queueing delay in nanoseconds, 0 before the first command.
+     */
+    public long getAverageDelayNanos() {
+        long count = commandCount;
+        return count == 0 ? 0 : totalDelayNanos / count;
+    }
+
+    /**
+     * Gets the longest time a command waited between submit() and the step that applied it.
+     *
+     * @return The maximum queueing delay in nanoseconds.
+     */
+    public long getMaxDelayNanos() {
+        return maxDelayNanos;
+    }
+
+    /**
+     * Gets the number of steps taken so far.
+     *
+     * @return The current tick.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Moves the step counter, when a saved game is restored. Must not be used while the
+     * simulation thread is running.
+     *
+     * @param tick The step count of the restored game.
+     */
+    void setTick(long tick) {
+        this.tick = tick;
+    }
+
+    /**
+     * Lets a policy play the game. The policy is asked for a command at the start of every
+     * step, after the queued commands, on the loop thread, so it can read the game safely.
+     *
+     * @param autopilot The policy, or null to leave the game to the queued commands.
+     */
+    public void setAutopilot(InputPolicy autopilot) {
+        this.autopilot = autopilot;
+    }
+
+    /**
+     * Turns the publishing of snapshots on or off. Replays turn it off while fast-forwarding,
+     * so frames nobody sees are not built.
+     *
+     * @param publishing True to publish a snapshot after every step that changed the game.
+     */
+    public void setPublishing(boolean publishing) {
+        this.publishing = publishing;
+    }
+
+    /**
+     * Runs steps at a fixed rate until the loop is stopped. Deadlines advance by exactly one
+     * step each time, so the rate does not drift with the time a step takes.
+     */
+    @Override
+    public void run() {
+        long deadline = System.nanoTime();
+        while (running) {
+            long now = System.nanoTime();
+            int behind = 0;
+            while (now - deadline >= 0) {
+                try {
+                    step();
+                } catch (RuntimeException e) {
+                    e.printStackTrace(); // Keep the game running, as the Swing timer used to.
+                }
+                deadline += TICK_NANOS;
+                if (++behind == MAX_CATCH_UP) {
+                    deadline = now + TICK_NANOS; // Too far behind; drop the missed steps.
+                    break;
+                }
+            }
+            LockSupport.parkNanos(deadline - System.nanoTime());
+        }
+    }
+
+    /**
+     * Advances the game by one fixed step: applies the queued commands, then the game's own
+     * periodic work, and publishes a new snapshot if anything happened.
+     */
+    public void step() {
+        stepNanos = System.nanoTime();
+        boolean changed = input.drain(applier, INPUT_CAPACITY) > 0;
+        InputPolicy policy = autopilot;
+        if (policy != null) {
+            Command command = policy.next(game, tick);
+            if (command != null) {
+                game.applyCommand(command);
+                changed = true;
+            }
+        }
+        changed |= game.tick();
+        tick++;
+        if (changed && publishing) {
+            game.publishSnapshot(tick);
+        }
+    }
+
+    // Applies one drained command and records how long it waited
+    private void apply(Command command, long timestampNanos) {
+        long delay = stepNanos - timestampNanos;
+        commandCount++;
+        totalDelayNanos += delay;
+        if (delay > maxDelayNanos) {
+            maxDelayNanos = delay;
+        }
+        game.applyCommand(command);
+    }
+
+    /**
+     * Advances the game by a number of steps as fast as possible. Must not be used while
+     * the simulation thread is running.
+     *
+     * @param count The number of steps to take.
+     */
+    public void runTicks(int count) {
+        for (int i = 0; i < count; i++) {
+            step();
+        }
+    }
+}
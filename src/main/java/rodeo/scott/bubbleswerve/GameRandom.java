@@ -0,0 +1,123 @@
+package rodeo.scott.bubbleswerve;
+
+/**
+ * Seedable random source owned by a single game.
+ * This is the SplitMix64 generator: a 64-bit counter advanced by a fixed odd constant and
+ * passed through a mixing function. It is fast, needs no synchronization (each game, and each
+ * thread, has its own instance), and its whole state is one long, so a game can be reproduced
+ * from its seed and inputs, and saved or restored mid-game.
+ *
+ * Not thread-safe; use split() to give another thread a generator of its own.
+ *
+ * @author https://scott.rodeo/
+ */
+public final class GameRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L; // Counter increment, 2^64 divided by the golden ratio.
+
+    private final long seed;   // Seed the generator was created with.
+    private long state;        // Counter; the next output is mix64(state + GOLDEN_GAMMA).
+
+    /**
+     * Constructs a generator from a seed. The same seed always gives the same sequence.
+     *
+     * @param seed The seed.
+     */
+    public GameRandom(long seed) {
+        this.seed = seed;
+        this.state = seed;
+    }
+
+    /**
+     * Creates a generator seeded from the clock, for games that do not need to be reproduced.
+     *
+     * @return A new generator.
+     */
+    public static GameRandom fromClock() {
+        return new GameRandom(mix64(System.nanoTime() ^ System.currentTimeMillis() * GOLDEN_GAMMA));
+    }
+
+    // Stafford's variant 13 of the MurmurHash3 finalizer; also used to derive Zobrist keys
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Gets the seed the generator was created with.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the current state, from which setState resumes the exact same sequence.
+     *
+     * @return The state.
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Restores a state returned by getState.
+     *
+     * @param state The state.
+     */
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    /**
+     * Gets the next 64 random bits.
+     *
+     * @return A uniformly distributed long.
+     */
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix64(state);
+    }
+
+    /**
+     * Gets a uniformly distributed int between 0 (inclusive) and bound (exclusive),
+     * using Lemire's multiply-and-shift method without bias.
+     *
+     * @param bound The upper bound; must be positive.
+     * @return The random int.
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive: " + bound);
+        }
+        long product = (nextLong() >>> 32) * bound;
+        if ((product & 0xffffffffL) < bound) {
+            long threshold = (0x100000000L - bound) % bound; // 2^32 mod bound
+            while ((product & 0xffffffffL) < threshold) {
+                product = (nextLong() >>> 32) * bound; // Rejected to keep the result unbiased.
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    /**
+     * Gets a uniformly distributed double between 0 (inclusive) and 1 (exclusive).
+     *
+     * @return The random double.
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Creates an independent generator seeded from this one, e.g. for a parallel game.
+     * Splitting advances this generator, so a sequence of splits is itself reproducible.
+     *
+     * @return The new generator.
+     */
+    public GameRandom split() {
+        return new GameRandom(mix64(nextLong()));
+    }
+}
@@ -0,0 +1,213 @@
+package rodeo.scott.bubbleswerve;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One game hosted by a SessionHost.
+ * The session steps its game loop from a task on the host's shared scheduler instead of a
+ * thread of its own, so its clock is the game's own tick count. A paused or finished game
+ * parks its task and costs nothing until the next command wakes it up.
+ *
+ * Commands may come from any thread; submit() is synchronized so the loop's input queue
+ * still sees a single producer at a time.
+ *
+ * @author https://scott.rodeo/
+ */
+public class GameSession {
+
+    private static final int SESSION_OVERHEAD_BYTES = 8192; // Everything but the board and snapshot: game, loop, input queue, piece.
+
+    private final long id;                                    // Identifier given by the host.
+    private final Game game;                                  // The hosted game.
+    private final GameLoop loop;                              // Steps the game; never started as a thread.
+    private final ScheduledExecutorService scheduler;         // The host's shared scheduler.
+    private final AtomicBoolean parked = new AtomicBoolean(true); // True while no step task is scheduled.
+    private volatile ScheduledFuture<?> task;                 // The step task, while not parked.
+    private volatile boolean closed;                          // Set once the host has dropped the session.
+    private long deadlineNanos;                               // Time the next step is due; used by the step task only.
+
+    // Step timings, written by the step task and read by monitoring.
+    private volatile long tickCount;
+    private volatile long totalStepNanos;
+    private volatile long maxStepNanos;
+    private volatile long totalLatenessNanos;
+    private volatile long maxLatenessNanos;
+
+    /**
+     * Constructs a parked session. The host wakes it up once it is registered.
+     *
+     * @param id        Identifier given by the host.
+     * @param game      The game to host.
+     * @param scheduler The scheduler running the step tasks.
+     */
+    GameSession(long id, Game game, ScheduledExecutorService scheduler) {
+        this.id = id;
+        this.game = game;
+        this.loop = game.getLoop();
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Queues a command for the next step of the game, and wakes the session up if it is parked.
+     *
+     * @param command The command.
+     * @return True if the command was queued, false if it was dropped.
+     */
+    public boolean submit(Command command) {
+        if (closed) {
+            return false;
+        }
+        boolean queued;
+        synchronized (this) {
+            queued = loop.submit(command);
+        }
+        wake();
+        return queued;
+    }
+
+    /**
+     * Schedules the step task if the session is parked.
+     */
+    void wake() {
+        if (!closed && parked.compareAndSet(true, false)) {
+            deadlineNanos = System.nanoTime();
+            task = scheduler.scheduleAtFixedRate(this::step, 0, GameLoop.TICK_NANOS, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Stops the step task for good.
+     */
+    void close() {
+        closed = true;
+        ScheduledFuture<?> current = task;
+        if (current != null) {
+            current.cancel(false);
+        }
+    }
+
+    // Runs one step of the game on a scheduler thread, then parks if the game has stopped
+    private void step() {
+        long start = System.nanoTime();
+        long lateness = start - deadlineNanos;
+        deadlineNanos += GameLoop.TICK_NANOS;
+        try {
+            loop.step();
+        } catch (RuntimeException e) {
+            System.out.println("Session " + id + " failed and was stopped: " + e);
+            close();
+            return;
+        }
+        long duration = System.nanoTime() - start;
+
+        tickCount++;
+        totalStepNanos += duration;
+        totalLatenessNanos += lateness;
+        if (duration > maxStepNanos) {
+            maxStepNanos = duration;
+        }
+        if (lateness > maxLatenessNanos) {
+            maxLatenessNanos = lateness;
+        }
+
+        // The task field is still null if this first step ran before wake() stored it; park next step.
+        ScheduledFuture<?> current = task;
+        if ((game.isPaused || game.isGameOver()) && current != null) {
+            current.cancel(false);
+            task = null;
+            parked.set(true);
+            // A command that arrived while parking would otherwise wait for the next one.
+            if (loop.hasPendingInput()) {
+                wake();
+            }
+        }
+    }
+
+    /**
+     * Gets the identifier given by the host.
+     *
+     * @return The session id.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the hosted game. Its state must only be read through snapshots and listeners.
+     *
+     * @return The game.
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * Checks whether the session is parked, taking no scheduler time.
+     *
+     * @return True while paused, finished or closed.
+     */
+    public boolean isParked() {
+        return parked.get() || closed;
+    }
+
+    /**
+     * Gets the number of steps run so far.
+     *
+     * @return The tick count.
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Gets the average time a step took to run.
+     *
+     * @return The average step time in nanoseconds, 0 before the first step.
+     */
+    public long getAverageStepNanos() {
+        long count = tickCount;
+        return count == 0 ? 0 : totalStepNanos / count;
+    }
+
+    /**
+     * Gets the longest time a step took to run.
+     *
+     * @return The maximum step time in nanoseconds.
+     */
+    public long getMaxStepNanos() {
+        return maxStepNanos;
+    }
+
+    /**
+     * Gets the average time steps started after they were due, a measure of scheduler load.
+     *
+     * @return The average lateness in nanoseconds, 0 before the first step.
+     */
+    public long getAverageLatenessNanos() {
+        long count = tickCount;
+        return count == 0 ? 0 : totalLatenessNanos / count;
+    }
+
+    /**
+     * Gets the longest time a step started after it was due.
+     *
+     * @return The maximum lateness in nanoseconds.
+     */
+    public long getMaxLatenessNanos() {
+        return maxLatenessNanos;
+    }
+
+    /**
+     * Estimates the heap held by the session: the board, the published snapshot's cells and
+     * a fixed allowance for the other objects of a game.
+     *
+     * @return The approximate size in bytes.
+     */
+    public long getMemoryEstimate() {
+        FrameSnapshot frame = game.getSnapshot();
+        long snapshotCells = frame == null ? 0 : (long) frame.getWidth() * frame.getHeight();
+        return SESSION_OVERHEAD_BYTES + game.grid.getMemoryEstimate() + snapshotCells;
+    }
+}
@@ -0,0 +1,83 @@
+package rodeo.scott.bubbleswerve;
+
+/**
+ * Complete saved state of a Game at the end of a loop step: enough to carry on playing from
+ * it exactly as the original game would have, given the same inputs.
+ * Taken by Game.saveState() and applied by Game.restoreState(); settings that are not part of
+ * play, such as the gravity curve, listeners and journal, stay with the game.
+ *
+ * The board is kept in the grid's fixed physical layout along with the view rotation.
+ *
+ * @author https://scott.rodeo/
+ */
+public class GameState {
+
+    long tick;                          // Loop steps taken.
+    long randomState;                   // State of the game's random source.
+    long seed;                          // Seed the random source was created with.
+    int gridRotation;                   // Clockwise quarter turns of the board view.
+    byte[] cells;                       // Palette index of every physical cell, row-major.
+    int pieceShape = -1;                // Shape id of the active piece, -1 if there is none.
+    int pieceRotation;                  // Rotation state of the active piece.
+    int pieceRow;                       // Pivot row of the active piece.
+    int pieceCol;                       // Pivot column of the active piece.
+    long gameNanos;                     // Game time.
+    long nextGravityNanos;              // Game time of the next gravity step.
+    boolean gameOver;
+    boolean paused;
+    Game.Orientation orientation;
+    boolean powerupActive;
+    int powerupX;
+    int powerupY;
+    int powerupTickCounter;
+    Game.PowerUpType powerupType;       // Type of the last power-up spawned, or null.
+    int score;
+    int level;
+    int linesCleared;
+    long piecesDealt;                   // Pieces dealt by the generator, the active one included.
+
+    /**
+     * Gets the loop step the state was taken at.
+     *
+     * @return The tick.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Gets the seed of the game the state was taken from.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the score at the time the state was taken.
+     *
+     * @return The score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the level at the time the state was taken.
+     *
+     * @return The level.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Checks whether the game was over when the state was taken.
+     *
+     * @return True if the game had ended.
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+}
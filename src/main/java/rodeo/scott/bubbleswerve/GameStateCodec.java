@@ -0,0 +1,228 @@
+package rodeo.scott.bubbleswerve;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Compact, versioned binary form of a GameState, for save files and autosaves.
+ *
+ * Layout, big-endian: the 4-byte MAGIC and a VERSION byte; the tick, seed, random state, game
+ * time, next gravity time and the number of pieces dealt as longs; score, level and cleared lines as ints; a flags byte
+ * (game over, paused, power-up active); the grid rotation, orientation and power-up type as
+ * bytes (-1 for no type); the power-up column and row as bytes and its tick counter as an int;
+ * the piece's shape id as a short (-1 for none), rotation as a byte, pivot row and column as
+ * shorts; the cell count as a short followed by the cells packed two to a byte, low nibble
+ * first; and a CRC-32 of everything before it. A standard board takes about 220 bytes. The
+ * upcoming pieces are not stored: the game's piece generator deals them again from the seed
+ * and the piece count.
+ *
+ * Files are written whole through a FileChannel to a temporary file that then replaces the
+ * old one, so a crash mid-save never leaves a half-written save behind.
+ *
+ * @author https://scott.rodeo/
+ */
+public final class GameStateCodec {
+
+    public static final int MAGIC = 0x42534753;    // "BSGS".
+    public static final int VERSION = 2;           // Layout version written after the magic; 2 adds the piece count.
+
+    private static final int FIXED_BYTES = 4 + 1 + 6 * 8 + 3 * 4 + 1 + 3 + 2 + 4 + 2 + 1 + 2 + 2 + 2 + 4; // Everything but the cells.
+    private static final int GAME_OVER = 1;        // Flag bits.
+    private static final int PAUSED = 2;
+    private static final int POWERUP_ACTIVE = 4;
+
+    private GameStateCodec() {
+    }
+
+    /**
+     * Gets the encoded size of a state.
+     *
+     * @param state The state.
+     * @return The number of bytes encode() writes.
+     */
+    public static int size(GameState state) {
+        return FIXED_BYTES + (state.cells.length + 1) / 2;
+    }
+
+    /**
+     * Encodes a state into a new buffer.
+     *
+     * @param state The state.
+     * @return A buffer holding the encoded state, positioned at 0.
+     */
+    public static ByteBuffer encode(GameState state) {
+        ByteBuffer buffer = ByteBuffer.allocate(size(state));
+        encode(state, buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Encodes a state at the position of a buffer.
+     *
+     * @param state  The state.
+     * @param buffer The buffer, with at least size(state) bytes remaining.
+     */
+    public static void encode(GameState state, ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.putInt(MAGIC);
+        buffer.put((byte) VERSION);
+        buffer.putLong(state.tick);
+        buffer.putLong(state.seed);
+        buffer.putLong(state.randomState);
+        buffer.putLong(state.gameNanos);
+        buffer.putLong(state.nextGravityNanos);
+        buffer.putLong(state.piecesDealt);
+        buffer.putInt(state.score);
+        buffer.putInt(state.level);
+        buffer.putInt(state.linesCleared);
+        buffer.put((byte) ((state.gameOver ? GAME_OVER : 0) | (state.paused ? PAUSED : 0)
+                | (state.powerupActive ? POWERUP_ACTIVE : 0)));
+        buffer.put((byte) state.gridRotation);
+        buffer.put((byte) state.orientation.ordinal());
+        buffer.put((byte) (state.powerupType == null ? -1 : state.powerupType.ordinal()));
+        buffer.put((byte) state.powerupX);
+        buffer.put((byte) state.powerupY);
+        buffer.putInt(state.powerupTickCounter);
+        buffer.putShort((short) state.pieceShape);
+        buffer.put((byte) state.pieceRotation);
+        buffer.putShort((short) state.pieceRow);
+        buffer.putShort((short) state.pieceCol);
+
+        byte[] cells = state.cells;
+        buffer.putShort((short) cells.length);
+        for (int i = 0; i < cells.length; i += 2) {
+            int high = i + 1 < cells.length ? cells[i + 1] : 0;
+            buffer.put((byte) ((cells[i] & 0x0F) | (high << 4)));
+        }
+
+        CRC32 crc = new CRC32();
+        ByteBuffer covered = buffer.duplicate();
+        covered.limit(buffer.position());
+        covered.position(start);
+        crc.update(covered);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    /**
+     * Decodes a state from the position of a buffer.
+     *
+     * @param buffer The buffer holding an encoded state; its position moves past it.
+     * @return The decoded state.
+     * @throws IllegalArgumentException If the bytes are not a state this version can read, or
+     *                                  are damaged.
+     */
+    public static GameState decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a saved game");
+            }
+            int version = buffer.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported save version " + version);
+            }
+            GameState state = new GameState();
+            state.tick = buffer.getLong();
+            state.seed = buffer.getLong();
+            state.randomState = buffer.getLong();
+            state.gameNanos = buffer.getLong();
+            state.nextGravityNanos = buffer.getLong();
+            state.piecesDealt = buffer.getLong();
+            state.score = buffer.getInt();
+            state.level = buffer.getInt();
+            state.linesCleared = buffer.getInt();
+            int flags = buffer.get();
+            state.gameOver = (flags & GAME_OVER) != 0;
+            state.paused = (flags & PAUSED) != 0;
+            state.powerupActive = (flags & POWERUP_ACTIVE) != 0;
+            state.gridRotation = buffer.get() & 3;
+            state.orientation = Game.Orientation.values()[buffer.get()];
+            int type = buffer.get();
+            state.powerupType = type < 0 ? null : Game.PowerUpType.values()[type];
+            state.powerupX = buffer.get();
+            state.powerupY = buffer.get();
+            state.powerupTickCounter = buffer.getInt();
+            state.pieceShape = buffer.getShort();
+            state.pieceRotation = buffer.get() & 3;
+            state.pieceRow = buffer.getShort();
+            state.pieceCol = buffer.getShort();
+
+            int count = buffer.getShort() & 0xFFFF;
+            byte[] cells = new byte[count];
+            for (int i = 0; i < count; i += 2) {
+                int packed = buffer.get();
+                cells[i] = (byte) (packed & 0x0F);
+                if (i + 1 < count) {
+                    cells[i + 1] = (byte) ((packed >> 4) & 0x0F);
+                }
+            }
+            state.cells = cells;
+
+            CRC32 crc = new CRC32();
+            ByteBuffer covered = buffer.duplicate();
+            covered.limit(buffer.position());
+            covered.position(start);
+            crc.update(covered);
+            if (buffer.getInt() != (int) crc.getValue()) {
+                throw new IllegalArgumentException("Saved game is damaged (checksum mismatch)");
+            }
+            return state;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Saved game is incomplete");
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Saved game has an unknown orientation or power-up type");
+        }
+    }
+
+    /**
+     * Writes a state to a file, replacing it only once the new contents are complete.
+     *
+     * @param state The state.
+     * @param path  The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void save(GameState state, String path) throws IOException {
+        Path target = Paths.get(path).toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        ByteBuffer buffer = encode(state);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a state from a file.
+     *
+     * @param path The file to read.
+     * @return The decoded state.
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalArgumentException If the file is not a state this version can read.
+     */
+    public static GameState load(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Short.MAX_VALUE * 2L) {
+                throw new IllegalArgumentException("Saved game is too large: " + size + " bytes");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the whole file is in the buffer.
+            }
+            buffer.flip();
+            return decode(buffer);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package rodeo.scott.bubbleswerve;
+import java.util.Arrays;
+
+/**
+ * How often gravity moves the active piece at each level.
+ * A curve is a table of gravity intervals in nanoseconds, one per level starting at level 1;
+ * levels past the end of the table keep the last interval. Intervals may be shorter than a
+ * step of the game loop, in which case gravity runs several times in one step.
+ *
+ * @author https://scott.rodeo/
+ */
+public final class GravityCurve {
+
+    private static final long BASE_NANOS = 500_000_000L; // Level 1 interval, the original 500 ms.
+    private static final double FACTOR = 0.8;            // Each level is 20% faster than the one before.
+    private static final int LEVELS = 20;                 // Levels in the default curve; level 20 is about 7 ms.
+
+    private static final GravityCurve DEFAULT = geometric(BASE_NANOS, FACTOR, LEVELS);
+
+    private final long[] intervals; // Gravity interval of each level, index 0 being level 1.
+
+    private GravityCurve(long[] intervals) {
+        this.intervals = intervals;
+    }
+
+    /**
+     * Gets the built-in curve: 500 ms at level 1, 20% faster every level up to level 20,
+     * which drops below 50 ms from level 12.
+     *
+     * @return The default gravity curve.
+     */
+    public static GravityCurve getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Builds a curve from explicit intervals.
+     *
+     * @param intervalNanos Gravity interval of each level in nanoseconds, starting at level 1.
+     * @return The curve.
+     */
+    public static GravityCurve of(long... intervalNanos) {
+        if (intervalNanos.length == 0) {
+            throw new IllegalArgumentException("A gravity curve needs at least one level.");
+        }
+        for (long interval : intervalNanos) {
+            if (interval <= 0) {
+                throw new IllegalArgumentException("Gravity intervals must be positive: " + interval);
+            }
+        }
+        return new GravityCurve(intervalNanos.clone());
+    }
+
+    /**
+     * Builds a curve whose interval shrinks by a constant factor every level.
+     *
+     * @param firstNanos Interval at level 1 in nanoseconds.
+     * @param factor     Ratio between the intervals of consecutive levels, between 0 and 1.
+     * @param levels     Number of levels before the interval stops shrinking.
+     * @return The curve.
+     */
+    public static GravityCurve geometric(long firstNanos, double factor, int levels) {
+        if (factor <= 0 || factor > 1 || levels <= 0) {
+            throw new IllegalArgumentException("Invalid geometric gravity curve: factor " + factor + ", " + levels + " levels");
+        }
+        long[] intervals = new long[levels];
+        double interval = firstNanos;
+        for (int i = 0; i < levels; i++) {
+            intervals[i] = Math.max(1, Math.round(interval));
+            interval *= factor;
+        }
+        return of(intervals);
+    }
+
+    /**
+     * Gets the gravity interval of a level.
+     *
+     * @param level The level, starting at 1.
+     * @return The time between two gravity steps, in nanoseconds.
+     */
+    public long getIntervalNanos(int level) {
+        int index = Math.min(Math.max(level, 1), intervals.length) - 1;
+        return intervals[index];
+    }
+
+    /**
+     * Gets the number of levels with an interval of their own.
+     *
+     * @return The length of the curve.
+     */
+    public int getLevels() {
+        return intervals.length;
+    }
+
+    @Override
+    public String toString() {
+        return "GravityCurve" + Arrays.toString(intervals);
+    }
+}
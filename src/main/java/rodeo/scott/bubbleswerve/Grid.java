@@ -1,8 +1,6 @@
 package rodeo.scott.bubbleswerve;
 
-import java.awt.Color;
-import java.awt.Graphics;
-import javax.swing.JFrame;
+import java.util.Arrays;
 
 /**
  * @author https://scott.rodeo/
@@ -12,55 +10,99 @@ public class Grid {
 	
 	public int HEIGHT = 22;	// default height of game grid in bubbles
 	public int WIDTH = 12;	// default width of game grid in bubbles
-	public static int TOP;		// default pixel position: top of grid
-	public static int LEFT;	// default pixel position: left of grid
 
 	public static final int BORDER = 0;
-	public static final Color EMPTY = Color.WHITE;
+	public static final int EMPTY = 0;	// palette index of an unoccupied cell
+	public static final int COLORS = 10;	// palette indices a cell can hold, EMPTY included
 	
-	private Bubble[][] board;
-	private Engine engine;
+	public static final int MAX_SIZE = Long.SIZE;	// rows and columns are packed into 64-bit words
+	private static final int ARRAY_HEADER_BYTES = 16;	// object header and length of an array on a 64-bit JVM
+
+	// The cells are stored in one fixed physical layout. HEIGHT, WIDTH and every (row, col)
+	// passed to the public methods are in the rotated view the player sees, and are mapped
+	// onto the physical layout according to the number of clockwise quarter turns.
+	private int rows;			// physical height of the layout
+	private int columns;		// physical width of the layout
+	private int rotation;		// clockwise quarter turns of the view, 0 to 3
+
+	private long[] rowBits;		// occupancy bitboard: one word per physical row, bit c set when column c is filled
+	private long[] columnBits;	// occupancy bitboard: one word per physical column, bit r set when row r is filled
+	private byte[] cells;		// palette index of every physical cell, row-major; 0 is EMPTY
+	private long fullRows;		// bit r set while physical row r is full, kept up to date by every cell change
+	private long fullColumns;	// bit c set while physical column c is full
+	private long fullRowWord;	// row word of a completely filled physical row
+	private long fullColumnWord;	// column word of a completely filled physical column
+	private long hash;			// Zobrist hash of the occupied cells and the view rotation, kept up to date by every change
     
 	
-	public Grid(Engine engine) {
-	    this.engine = engine;
+	public Grid() {
 	    initializeGrid();
 	}
 	 
 
 	private void initializeGrid() {  
 	
-		board = new Bubble[this.HEIGHT][this.WIDTH];
+		if (HEIGHT > MAX_SIZE || WIDTH > MAX_SIZE) {
+			throw new IllegalStateException("Grid dimensions exceed " + MAX_SIZE + ": " + HEIGHT + "x" + WIDTH);
+		}
 		
-		// Populate the grid with bubbles
-		for (int row = 0; row < HEIGHT; row++) {
-		    for (int col = 0; col < WIDTH; col++) {
-		        board[row][col] = new Bubble(this, row, col, EMPTY, false);
-		    }
-		}   
+		// Every cell starts out empty
+		rows = HEIGHT;
+		columns = WIDTH;
+		rotation = 0;
+		rowBits = new long[rows];
+		columnBits = new long[columns];
+		cells = new byte[rows * columns];
+		fullRows = 0;
+		fullColumns = 0;
+		fullRowWord = lineMask(columns);
+		fullColumnWord = lineMask(rows);
+		hash = Zobrist.rotation(0);
+	}
+
+
+	// Physical row of the cell shown at (row, col) in the current view
+	private int physicalRow(int row, int col) {
+		switch (rotation) {
+			case 1:
+				return rows - 1 - col;
+			case 2:
+				return rows - 1 - row;
+			case 3:
+				return col;
+			default:
+				return row;
+		}
+	}
+
+
+	// Physical column of the cell shown at (row, col) in the current view
+	private int physicalCol(int row, int col) {
+		switch (rotation) {
+			case 1:
+				return row;
+			case 2:
+				return columns - 1 - col;
+			case 3:
+				return columns - 1 - row;
+			default:
+				return col;
+		}
 	}
 	    
     
     public void clearCell(int row, int col) {
         if (row >= 0 && row < HEIGHT && col >= 0 && col < WIDTH) {
-            board[row][col].setColor(EMPTY); // EMPTY represents an unoccupied cell
+            clearPhysical(physicalRow(row, col), physicalCol(row, col)); // EMPTY represents an unoccupied cell
         }
     }
     
     
+    // Rotates the view by a quarter turn; the physical layout is left untouched
     public void rotateBoardClockwise() {
     	
-        Bubble[][] newBoard = new Bubble[WIDTH][HEIGHT]; // Transposed dimensions
-        
-        for (int row = 0; row < HEIGHT; row++) {
-            for (int col = 0; col < WIDTH; col++) {
-                newBoard[col][HEIGHT - 1 - row] = board[row][col];
-                newBoard[col][HEIGHT - 1 - row].setRow(col);
-                newBoard[col][HEIGHT - 1 - row].setCol(HEIGHT - 1 - row);
-            }
-        }
-        
-        board = newBoard;
+        hash ^= Zobrist.rotation(rotation) ^ Zobrist.rotation(rotation + 1);
+        rotation = (rotation + 1) & 3;
         int temp = WIDTH;
         WIDTH = HEIGHT;
         HEIGHT = temp; // Update dimensions
@@ -74,181 +116,323 @@ public class Grid {
             return false; // Out of bounds
         }
         // Check if the cell is empty
-        return board[row][col].getColor() == EMPTY; // Assuming EMPTY is a constant for unoccupied cells
+        return (rowBits[physicalRow(row, col)] & (1L << physicalCol(row, col))) == 0;
     }
 
     
-    public Color getColor(int row, int col) {
+    public int getColor(int row, int col) {
         // Validate row and column indices
         if (row < 0 || row >= HEIGHT || col < 0 || col >= WIDTH) {
             throw new IllegalArgumentException("Invalid grid coordinates: (" + row + ", " + col + ")");
         }
 
-        Bubble square = board[row][col];
-        return (square != null) ? square.getColor() : Grid.EMPTY; // Return the color or EMPTY if null
+        return cells[physicalRow(row, col) * columns + physicalCol(row, col)]; // Palette index, EMPTY when unoccupied
+    }
+
+
+    /**
+     * Gets the occupancy of a row of the current view as a bitmask, bit c being set when
+     * column c is filled. The row must be inside the grid.
+     *
+     * @param row The row of the view.
+     * @return The row's occupancy bits.
+     */
+    public long getRowBits(int row) {
+        switch (rotation) {
+            case 1:
+                return Long.reverse(columnBits[row]) >>> (Long.SIZE - rows);
+            case 2:
+                return Long.reverse(rowBits[rows - 1 - row]) >>> (Long.SIZE - columns);
+            case 3:
+                return columnBits[columns - 1 - row];
+            default:
+                return rowBits[row];
+        }
+    }
+
+
+    /**
+     * Counts the empty cells a bubble at (row, col) could fall through before landing,
+     * in the direction of gravity of the current view. Gravity always points to the bottom
+     * of the physical layout, so this is a single lookup in the physical column's word.
+     * The cell must be inside the grid.
+     *
+     * @param row The row of the view.
+     * @param col The column of the view.
+     * @return The number of free cells between the cell and the stack or floor it lands on.
+     */
+    public int dropDistance(int row, int col) {
+        int pr = physicalRow(row, col);
+        long below = pr + 1 >= Long.SIZE ? 0 : columnBits[physicalCol(row, col)] & (-1L << (pr + 1));
+        int landing = below == 0 ? rows : Long.numberOfTrailingZeros(below); // First filled row underneath, or the floor
+        return landing - pr - 1;
+    }
+
+
+    /**
+     * Gets the surface height map of the board: the height of the stack in one lane, measured
+     * from the floor in the direction of gravity. Lanes are the physical columns, so the map
+     * is the same for every orientation; in the DOWN view lane c is column c, and the other
+     * views see the lanes rotated with the board. Holes under the surface are included.
+     *
+     * @param lane The lane, from 0 to getLaneCount() - 1.
+     * @return The number of cells from the floor up to and including the highest filled cell.
+     */
+    public int getStackHeight(int lane) {
+        long bits = columnBits[lane];
+        return bits == 0 ? 0 : rows - Long.numberOfTrailingZeros(bits);
+    }
+
+
+    /**
+     * Gets the number of lanes of the surface height map.
+     *
+     * @return The number of physical columns.
+     */
+    public int getLaneCount() {
+        return columns;
+    }
+
+
+    /**
+     * Gets the occupancy of one lane of the physical layout, for code that searches placements
+     * in the direction of gravity, such as the AutoPlayer.
+     *
+     * @param lane The lane, from 0 to getLaneCount() - 1.
+     * @return The column word: bit r is set when physical row r of the lane is filled, and
+     *         gravity points towards higher bits.
+     */
+    public long getLaneBits(int lane) {
+        return columnBits[lane];
+    }
+
+
+    /**
+     * Gets the depth of a lane: the number of physical rows.
+     *
+     * @return The number of cells from the top of a lane to the floor.
+     */
+    public int getLaneDepth() {
+        return rows;
+    }
+
+
+    /**
+     * Maps a cell of the view onto its lane.
+     *
+     * @param row The row of the view.
+     * @param col The column of the view.
+     * @return The physical column holding the cell.
+     */
+    public int getLane(int row, int col) {
+        return physicalCol(row, col);
+    }
+
+
+    /**
+     * Maps a cell of the view onto its depth in its lane.
+     *
+     * @param row The row of the view.
+     * @param col The column of the view.
+     * @return The physical row holding the cell; 0 is the top, furthest from the floor.
+     */
+    public int getDepth(int row, int col) {
+        return physicalRow(row, col);
+    }
+
+
+    /**
+     * Estimates the heap taken by the board's arrays, for per-session accounting.
+     *
+     * @return The approximate size in bytes.
+     */
+    public long getMemoryEstimate() {
+        return 3 * ARRAY_HEADER_BYTES + 8L * (rows + columns) + cells.length;
     }
 
 
     public boolean isSet(int row, int col) {
-        if (row < 0 || row >= board.length || col < 0 || col >= board[0].length) {
+        if (row < 0 || row >= HEIGHT || col < 0 || col >= WIDTH) {
             return false; // Prevent ArrayIndexOutOfBoundsException
         }
-        return board[row][col].getColor() != EMPTY;
+        return (rowBits[physicalRow(row, col)] & (1L << physicalCol(row, col))) != 0;
     }
 
     
-    public Game getGame() {
-    	return engine.getGame();
-    }
-    
-    public JFrame getFrame() {
-    	return engine.getProgramWindow();
-    }    
-    
-    public PanelMenu getPanelMenu() {
-    	return engine.getPanelMenu();
-    }      
-    
-    public PanelGame getPanelGame() {
-    	return engine.getPanelGame();
-    }          
-    
-    
-    // Changes bubble color
-    public void set(int row, int col, Color c) {
+    // Changes bubble color to the given palette index; like clearCell, ignores cells outside the grid
+    public void set(int row, int col, int c) {
 		
-		board[row][col].setColor(c);
+    	if (c == EMPTY) {
+    		clearCell(row, col);
+    		return;
+    	}
+    	if (row < 0 || row >= HEIGHT || col < 0 || col >= WIDTH) {
+    		return; // A piece spawned partly off the board loses the bubbles outside it
+    	}
+    	setPhysical(physicalRow(row, col), physicalCol(row, col), (byte) c);
 	}
+    
+    
+    // Fills a physical cell; only the row and column through it can have become full
+    private void setPhysical(int pr, int pc, byte index) {
+    	if (cells[pr * columns + pc] == 0) {
+    		hash ^= Zobrist.cell(pr, pc); // Recolouring an occupied cell leaves the hash alone
+    	}
+    	cells[pr * columns + pc] = index;
+    	rowBits[pr] |= 1L << pc;
+    	columnBits[pc] |= 1L << pr;
+    	if (rowBits[pr] == fullRowWord) {
+    		fullRows |= 1L << pr;
+    	}
+    	if (columnBits[pc] == fullColumnWord) {
+    		fullColumns |= 1L << pc;
+    	}
+    }
+
+
+    // Empties a physical cell; the row and column through it can no longer be full
+    private void clearPhysical(int pr, int pc) {
+    	if (cells[pr * columns + pc] != 0) {
+    		hash ^= Zobrist.cell(pr, pc);
+    	}
+    	cells[pr * columns + pc] = 0;
+    	rowBits[pr] &= ~(1L << pc);
+    	columnBits[pc] &= ~(1L << pr);
+    	fullRows &= ~(1L << pr);
+    	fullColumns &= ~(1L << pc);
+    }
+
+
+    // Copies the contents of one cell into another
+    private void copyCell(int fromRow, int fromCol, int toRow, int toCol) {
+    	byte index = cells[physicalRow(fromRow, fromCol) * columns + physicalCol(fromRow, fromCol)];
+    	if (index == 0) {
+    		clearCell(toRow, toCol);
+    	} else {
+    		setPhysical(physicalRow(toRow, toCol), physicalCol(toRow, toCol), index);
+    	}
+    }
 
 
 	public void clearRow(int row) {
 	    for (int col = 0; col < WIDTH; col++) {
-	        board[row][col].setColor(EMPTY); // Clear the row by setting all cells to empty
+	        clearCell(row, col); // Clear the row by setting all cells to empty
 	    }
 	}
 	
 	
-	public int clearFullRows(Game.Orientation currentOrientation) {
-	    int cleared = 0;
-
-	    switch (currentOrientation) {
-	        case DOWN: // Default orientation
-	            for (int row = engine.game.grid.HEIGHT - 1; row >= 0; row--) {
-	                if (isFullRow(row)) {
-	                    deleteRow(row);
-	                    cleared++;
-	                    row++; // Re-check the same row after shifting
-	                }
-	            }
-	            break;
-
-	        case UP: // Upside-down orientation
-	            for (int row = 0; row < engine.game.grid.HEIGHT; row++) {
-	                if (isFullRow(row)) {
-	                    deleteRowUp(row);
-	                    cleared++;
-	                    row--; // Re-check the same row after shifting
-	                }
-	            }
-	            break;
-
-	        case LEFT: // Rotated left
-	            for (int col = engine.game.grid.WIDTH - 1; col >= 0; col--) {
-	                if (isFullColumn(col)) {
-	                    deleteColumnLeft(col);
-	                    cleared++;
-	                    col++; // Re-check the same column after shifting
-	                }
-	            }
-	            break;
-
-	        case RIGHT: // Rotated right
-	            for (int col = 0; col < engine.game.grid.WIDTH; col++) {
-	                if (isFullColumn(col)) {
-	                    deleteColumnRight(col);
-	                    cleared++;
-	                    col--; // Re-check the same column after shifting
-	                }
-	            }
-	            break;
+	/**
+	 * Clears every full line and collapses the board in the direction of gravity.
+	 * Gravity always points to the bottom of the physical layout whatever the orientation
+	 * (DOWN, LEFT, UP and RIGHT are the views rotated 0, 1, 2 and 3 quarter turns), so all
+	 * four orientations reduce to clearing full physical rows. The full rows are tracked as
+	 * cells change, so no row has to be scanned to find them, and all of them are removed
+	 * in a single compaction pass however many there are.
+	 *
+	 * @return The number of cleared lines.
+	 */
+	public int clearFullRows() {
+	    if (fullRows == 0) {
+	        return 0;
 	    }
 
+	    int cleared = Long.bitCount(fullRows);
+	    compactRows(fullRows);
 	    return cleared; // Return the number of cleared lines
 	}
 
 	
-	private void deleteRowUp(int row) {
-	    for (int r = row; r < engine.game.grid.HEIGHT - 1; r++) { // Shift rows up
-	        for (int col = 0; col < engine.game.grid.WIDTH; col++) {
-	            board[r][col].setColor(board[r + 1][col].getColor());
+	// Removes the given physical rows, moving every surviving row straight to its final position
+	private void compactRows(long removed) {
+	    // Only the rows from the top down to the lowest removed one change
+	    int lowest = Long.SIZE - 1 - Long.numberOfLeadingZeros(removed);
+	    hash ^= rowHash(lowest);
+
+	    int target = rows - 1;
+	    for (int pr = rows - 1; pr >= 0; pr--) {
+	        if ((removed & (1L << pr)) != 0) {
+	            continue; // Dropped; the rows above fall into its place
 	        }
+	        if (target != pr) {
+	            rowBits[target] = rowBits[pr];
+	            System.arraycopy(cells, pr * columns, cells, target * columns, columns);
+	        }
+	        target--;
 	    }
 
-	    // Clear the bottom row
-	    for (int col = 0; col < engine.game.grid.WIDTH; col++) {
-	        board[engine.game.grid.HEIGHT - 1][col].setColor(Grid.EMPTY);
-	    }
-	}
+	    // Everything above the last surviving row is now empty
+	    Arrays.fill(rowBits, 0, target + 1, 0L);
+	    Arrays.fill(cells, 0, (target + 1) * columns, (byte) 0);
 
-	
-	private void deleteColumnLeft(int col) {
-	    for (int c = col; c < engine.game.grid.WIDTH - 1; c++) { // Shift columns left
-	        for (int row = 0; row < engine.game.grid.HEIGHT; row++) {
-	            board[row][c].setColor(board[row][c + 1].getColor());
+	    // Rebuild the column words from the rows that still hold cells
+	    Arrays.fill(columnBits, 0L);
+	    for (int pr = target + 1; pr < rows; pr++) {
+	        for (long bits = rowBits[pr]; bits != 0; bits &= bits - 1) {
+	            columnBits[Long.numberOfTrailingZeros(bits)] |= 1L << pr;
 	        }
 	    }
-
-	    // Clear the rightmost column
-	    for (int row = 0; row < engine.game.grid.HEIGHT; row++) {
-	        board[row][engine.game.grid.WIDTH - 1].setColor(Grid.EMPTY);
-	    }
+	    fullRows = 0; // Only rows that were not full survive
+	    fullColumns = 0; // The top row is now empty
+	    hash ^= rowHash(lowest);
 	}
 
-	
-	private void deleteColumnRight(int col) {
-	    for (int c = col; c > 0; c--) { // Shift columns right
-	        for (int row = 0; row < engine.game.grid.HEIGHT; row++) {
-	            board[row][c].setColor(board[row][c - 1].getColor());
-	        }
-	    }
 
-	    // Clear the leftmost column
-	    for (int row = 0; row < engine.game.grid.HEIGHT; row++) {
-	        board[row][0].setColor(engine.game.grid.EMPTY);
+	// Exclusive or of the keys of the occupied cells in physical rows 0 to 'last'
+	private long rowHash(int last) {
+	    long h = 0;
+	    for (int pr = 0; pr <= last; pr++) {
+	        for (long bits = rowBits[pr]; bits != 0; bits &= bits - 1) {
+	            h ^= Zobrist.cell(pr, Long.numberOfTrailingZeros(bits));
+	        }
 	    }
+	    return h;
 	}
 
 	
 	private boolean isFullRow(int row) {
-	    for (int col = 0; col < engine.game.grid.WIDTH; col++) {
-	        if (board[row][col].getColor().equals(engine.game.grid.EMPTY)) {
-	            return false;
-	        }
+	    switch (rotation) {
+	        case 1:
+	            return (fullColumns & (1L << row)) != 0;
+	        case 2:
+	            return (fullRows & (1L << (rows - 1 - row))) != 0;
+	        case 3:
+	            return (fullColumns & (1L << (columns - 1 - row))) != 0;
+	        default:
+	            return (fullRows & (1L << row)) != 0;
 	    }
-	    return true;
 	}
 
-	
+
 	private boolean isFullColumn(int col) {
-	    for (int row = 0; row < engine.game.grid.HEIGHT; row++) {
-	        if (board[row][col].getColor().equals(Grid.EMPTY)) {
-	            return false;
-	        }
+	    switch (rotation) {
+	        case 1:
+	            return (fullRows & (1L << (rows - 1 - col))) != 0;
+	        case 2:
+	            return (fullColumns & (1L << (columns - 1 - col))) != 0;
+	        case 3:
+	            return (fullRows & (1L << col)) != 0;
+	        default:
+	            return (fullColumns & (1L << col)) != 0;
 	    }
-	    return true;
+	}
+	
+	
+	// Word with the lowest 'length' bits set, i.e. a completely filled line
+	private static long lineMask(int length) {
+	    return length == Long.SIZE ? -1L : (1L << length) - 1;
 	}
 	
 	
 	private void deleteColumn(int col) {
 	    for (int c = col; c > 0; c--) {
-	        for (int row = 0; row < engine.game.grid.HEIGHT; row++) {
-	            board[row][c].setColor(board[row][c - 1].getColor());
+	        for (int row = 0; row < HEIGHT; row++) {
+	            copyCell(row, c - 1, row, c);
 	        }
 	    }
 
 	    // Clear the leftmost column
-	    for (int row = 0; row < engine.game.grid.HEIGHT; row++) {
-	        board[row][0].setColor(engine.game.grid.EMPTY);
+	    for (int row = 0; row < HEIGHT; row++) {
+	        clearCell(row, 0);
 	    }
 	}
 
@@ -257,32 +441,30 @@ public class Grid {
 	void deleteRow(int row) {
 	    for (int r = row; r > 0; r--) {
 	        for (int col = 0; col < WIDTH; col++) {
-	            board[r][col].setColor(board[r - 1][col].getColor());
+	            copyCell(r - 1, col, r, col);
 	        }
 	    }
 
 	    // Clear the topmost row
 	    for (int col = 0; col < WIDTH; col++) {
-	        board[0][col].setColor(EMPTY);
+	        clearCell(0, col);
 	    }
 	}
 
 	
 	public void deleteRows(int row) {
 		
-		Color colorChange;
-		
 		if (row == 0) {
 		
 			for (int c = 0; c < WIDTH; c++) {
-				board[0][c].setColor(EMPTY);
+				clearCell(0, c);
 			}
 			
 		}else{
 			
 			for (int r = row; r > 0; r--) {
 				for (int c = 0; c < WIDTH; c++) {
-					board[r][c].setColor(board[r-1][c].getColor());	
+					copyCell(r-1, c, r, c);	
 				}
 			}
 		}
@@ -291,28 +473,25 @@ public class Grid {
 	
 	public void checkRows() {
 		
-		boolean rowFullCheck;
-		for (int r = 0; r < HEIGHT; r++) {
-			rowFullCheck = true;
-			for (int c = 0; c < WIDTH; c++) {
-				if (board[r][c].getColor().equals(EMPTY)) {
-					rowFullCheck = false;
-				}
-			}
-			
-			if (rowFullCheck == true) {
+		// Rows of the view are physical rows or physical columns depending on the rotation
+		if (((rotation & 1) == 0 ? fullRows : fullColumns) == 0) {
+			return; // Nothing is full, which is the case after almost every move
+		}
+		
+		for(int r = 0; r < HEIGHT; r++) {
+			if (isFullRow(r)) {
 				
 				if (r == 0) {
 					
 					for (int c = 0; c < WIDTH; c++) {
-						board[0][c].setColor(EMPTY);
+						clearCell(0, c);
 					}
 					
 				}else{
 					
 					for (int y = r; y> 0; y--) {
 						for (int c = 0; c < WIDTH; c++) {
-							board[y][c].setColor(board[y-1][c].getColor());	
+							copyCell(y-1, c, y, c);	
 						}
 					}
 				}
@@ -321,37 +500,102 @@ public class Grid {
 	}
 	
 
-	// Draws the grid on the given Graphics context
-	public void draw(Graphics g) {
-
-        this.LEFT = engine.getPanelGame().calculateLeft();	// Calculate the dynamic LEFT position
-        this.TOP = engine.getPanelGame().calculateTop();	// Calculate the dynamic TOP position
-        
-	    int boardWidth = engine.game.grid.WIDTH * engine.getPanelGame().getCellSize();
-	    int boardHeight = engine.game.grid.HEIGHT * engine.getPanelGame().getCellSize();
-        
-	    // Draw the rounded rectangle gray grid box
-	    /*
-        g.setColor(Color.GRAY);
-        g.setColor(Color.GRAY);
-        g.fillRoundRect(engine.getPanelGame().calculateLeft(), engine.getPanelGame().calculateTop(), boardWidth, boardHeight, 30, 30);
-	    */
-		// Draw all the bubbles in the grid
-		// Empty ones first (to avoid covering the black lines of the pieces that have already fallen)
-		for (int r = 0; r < HEIGHT; r++) {
-			for (int c = 0; c < WIDTH; c++) {
-				if (board[r][c].getColor().equals(EMPTY)) {
-					board[r][c].draw(g);
+	// Copies the palette index of every cell of the view into target, row-major (row * WIDTH + col)
+	public void copyCells(byte[] target) {
+
+		Arrays.fill(target, 0, rows * columns, (byte) 0);
+
+		// Only the filled cells need to be mapped into the rotated view
+		for (int pr = 0; pr < rows; pr++) {
+			for (long bits = rowBits[pr]; bits != 0; bits &= bits - 1) {
+				int pc = Long.numberOfTrailingZeros(bits);
+				int row;
+				int col;
+
+				// Map the physical cell back into the rotated view
+				switch (rotation) {
+					case 1:
+						row = pc;
+						col = rows - 1 - pr;
+						break;
+					case 2:
+						row = rows - 1 - pr;
+						col = columns - 1 - pc;
+						break;
+					case 3:
+						row = columns - 1 - pc;
+						col = pr;
+						break;
+					default:
+						row = pr;
+						col = pc;
 				}
+				target[row * WIDTH + col] = cells[pr * columns + pc];
 			}
 		}
-		for (int r = 0; r < HEIGHT; r++) {
-			for (int c = 0; c < WIDTH; c++) {
-				if (!board[r][c].getColor().equals(EMPTY)) {
-					board[r][c].draw(g);
+	}
+
+
+	// Empties the board and turns the view back to its original orientation, reusing the arrays
+	public void reset() {
+		Arrays.fill(rowBits, 0L);
+		Arrays.fill(columnBits, 0L);
+		Arrays.fill(cells, (byte) 0);
+		fullRows = 0;
+		fullColumns = 0;
+		rotation = 0;
+		HEIGHT = rows;
+		WIDTH = columns;
+		hash = Zobrist.rotation(0);
+	}
+
+
+	// Number of clockwise quarter turns of the view, 0 to 3
+	public int getRotation() {
+		return rotation;
+	}
+
+
+	// Zobrist hash of the occupied cells and the view rotation; equal boards have equal hashes
+	public long getHash() {
+		return hash;
+	}
+
+
+	// Number of cells of the board, in any rotation
+	public int getCellCount() {
+		return cells.length;
+	}
+
+
+	// Copies the palette index of every cell in the fixed physical layout, for saving the board
+	public void copyPhysicalCells(byte[] target) {
+		System.arraycopy(cells, 0, target, 0, cells.length);
+	}
+
+
+	// Replaces the whole board with saved physical cells and view rotation, rebuilding the bitboards
+	public void restore(int rotation, byte[] physicalCells) {
+		if (physicalCells.length != rows * columns) {
+			throw new IllegalArgumentException("Saved board has " + physicalCells.length + " cells, expected " + rows * columns);
+		}
+		Arrays.fill(rowBits, 0);
+		Arrays.fill(columnBits, 0);
+		Arrays.fill(cells, (byte) 0);
+		fullRows = 0;
+		fullColumns = 0;
+		hash = Zobrist.rotation(rotation);
+		for (int pr = 0; pr < rows; pr++) {
+			for (int pc = 0; pc < columns; pc++) {
+				byte index = physicalCells[pr * columns + pc];
+				if (index != EMPTY) {
+					setPhysical(pr, pc, index);
 				}
 			}
 		}
+		this.rotation = rotation & 3;
+		HEIGHT = (this.rotation & 1) == 0 ? rows : columns;
+		WIDTH = (this.rotation & 1) == 0 ? columns : rows;
 	}
 
 
@@ -0,0 +1,62 @@
+package rodeo.scott.bubbleswerve;
+
+/**
+ * Source of player input for a game that runs without a keyboard, such as the games of a
+ * BatchSimulator. The policy is asked once per step of the game loop and answers with the
+ * command to submit, or null to leave the game alone for that step.
+ *
+ * @author https://scott.rodeo/
+ */
+public interface InputPolicy {
+
+    // Commands a random player chooses from; pausing and restarting are left out.
+    Command[] PLAYER_COMMANDS = {
+        Command.LEFT, Command.RIGHT, Command.DOWN, Command.UP,
+        Command.HARD_DROP, Command.ROTATE_COUNTERCLOCKWISE, Command.ROTATE_BOARD
+    };
+
+    /**
+     * Chooses the input for the next step.
+     *
+     * @param game The game being played; read only.
+     * @param tick The number of steps taken so far.
+     * @return The command to submit, or null for no input.
+     */
+    Command next(Game game, long tick);
+
+    /**
+     * Creates a policy that presses a random player key on a random share of the steps.
+     *
+     * @param random The generator the policy draws from; owned by the policy from now on.
+     * @param rate   The chance of a key press on each step, from 0 to 1.
+     * @return The policy.
+     */
+    static InputPolicy random(GameRandom random, double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("Input rate must be between 0 and 1: " + rate);
+        }
+        return (game, tick) -> random.nextDouble() < rate
+                ? PLAYER_COMMANDS[random.nextInt(PLAYER_COMMANDS.length)]
+                : null;
+    }
+
+    /**
+     * Creates a policy that repeats a fixed sequence of commands, one every few steps.
+     *
+     * @param script   The commands to repeat, in order.
+     * @param interval The number of steps between two commands.
+     * @return The policy.
+     */
+    static InputPolicy scripted(Command[] script, int interval) {
+        if (script.length == 0) {
+            throw new IllegalArgumentException("Script has no commands");
+        }
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Script interval must be positive: " + interval);
+        }
+        Command[] commands = script.clone();
+        return (game, tick) -> tick % interval == 0
+                ? commands[(int) ((tick / interval) % commands.length)]
+                : null;
+    }
+}
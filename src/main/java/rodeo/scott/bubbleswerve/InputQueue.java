@@ -0,0 +1,111 @@
+package rodeo.scott.bubbleswerve;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, lock-free queue of timestamped commands from one producer thread (the Swing
+ * event dispatch thread) to one consumer thread (the game loop).
+ * Commands live in a ring of preallocated slots, so neither side allocates or blocks; the
+ * producer only publishes its write position and the consumer its read position. The
+ * consumer drains the queue in batches at the start of a step.
+ *
+ * @author https://scott.rodeo/
+ */
+public final class InputQueue {
+
+    /**
+     * Receives the commands drained from the queue.
+     */
+    public interface Handler {
+
+        /**
+         * Handles one command.
+         *
+         * @param command        The command.
+         * @param timestampNanos The System.nanoTime() at which the command was queued.
+         */
+        void handle(Command command, long timestampNanos);
+    }
+
+    private final int mask;                            // Capacity - 1, to wrap positions onto slots.
+    private final Command[] commands;                  // Command of each slot.
+    private final long[] timestamps;                   // Queueing time of each slot.
+    private final AtomicLong head = new AtomicLong();  // Next position to read; written by the consumer only.
+    private final AtomicLong tail = new AtomicLong();  // Next position to write; written by the producer only.
+    private long headCache;                            // Producer's last view of head, to avoid reading it on every offer.
+
+    /**
+     * Constructs an empty queue.
+     *
+     * @param capacity Number of slots; must be a power of two.
+     */
+    public InputQueue(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        mask = capacity - 1;
+        commands = new Command[capacity];
+        timestamps = new long[capacity];
+    }
+
+    /**
+     * Queues a command. Must only be called from the producer thread.
+     *
+     * @param command        The command.
+     * @param timestampNanos The current System.nanoTime().
+     * @return True if the command was queued, false if the queue is full.
+     */
+    public boolean offer(Command command, long timestampNanos) {
+        long t = tail.get();
+        if (t - headCache > mask) {
+            headCache = head.get();
+            if (t - headCache > mask) {
+                return false; // Full.
+            }
+        }
+        int slot = (int) t & mask;
+        commands[slot] = command;
+        timestamps[slot] = timestampNanos;
+        tail.lazySet(t + 1); // Publishes the slot to the consumer.
+        return true;
+    }
+
+    /**
+     * Hands queued commands to a handler, oldest first. Must only be called from the consumer thread.
+     *
+     * @param handler The handler receiving the commands.
+     * @param limit   The largest number of commands to drain.
+     * @return The number of commands drained.
+     */
+    public int drain(Handler handler, int limit) {
+        long h = head.get();
+        int count = (int) Math.min(tail.get() - h, limit);
+        for (int i = 0; i < count; i++) {
+            int slot = (int) (h + i) & mask;
+            Command command = commands[slot];
+            long timestamp = timestamps[slot];
+            commands[slot] = null;
+            head.lazySet(h + i + 1); // Frees the slot before handling, so a failing command is not retried.
+            handler.handle(command, timestamp);
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether any command is waiting. May be called from any thread; the answer can
+     * be stale by the time it is used.
+     *
+     * @return True if the queue holds no command.
+     */
+    public boolean isEmpty() {
+        return tail.get() == head.get();
+    }
+
+    /**
+     * Gets the number of slots.
+     *
+     * @return The capacity of the queue.
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+}
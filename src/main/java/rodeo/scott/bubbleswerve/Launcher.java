@@ -2,14 +2,38 @@ package rodeo.scott.bubbleswerve;
 
 /**
  * Launcher class for starting the Bubbleswerve game.
- * This class initializes the game engine and launches the game.
+ * This class initializes the game engine and launches the game, or runs a batch of
+ * headless games when started with "--simulate", or plays back a journal with "--replay".
+ * "--resume" continues the autosaved game, "--demo" lets the AutoPlayer play, and "--scores"
+ * prints the leaderboard.
  * 
  * @author https://scott.rodeo/
  */
 public class Launcher {
 
+    private static final int DEMO_COMMAND_INTERVAL = 6; // Steps between the moves of the demo player.
+
     public static void main(String[] args) {
-        // Create an instance of the Engine to start the game.
-        Engine engine = new Engine();
+        // Run headless games instead of the window when asked to simulate.
+        if (args.length > 0 && args[0].equals("--simulate")) {
+            BatchSimulator.run(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--scores")) {
+            ScoreStore.run(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--replay")) {
+            ReplayPlayer.run(args);
+            return;
+        }
+
+        // Create an instance of the Engine to start the game, or continue the saved one.
+        Engine engine = new Engine(args.length > 0 && args[0].equals("--resume"));
+
+        // Let the computer play, e.g. at events.
+        if (args.length > 0 && args[0].equals("--demo")) {
+            engine.getGame().getLoop().setAutopilot(new AutoPlayer(DEMO_COMMAND_INTERVAL));
+        }
     }
 }
@@ -0,0 +1,78 @@
+package rodeo.scott.bubbleswerve;
+import java.awt.Color;
+
+/**
+ * Registry of the colors used to draw bubbles.
+ * The game model stores only the small integer index of a color (in every grid cell,
+ * bubble and piece); the index is resolved to a Color only when rendering, so the model
+ * itself has no AWT dependency.
+ *
+ * Index 0 is reserved for empty cells, and indices 1 to 9 map to the piece colors
+ * b1 to b9.
+ *
+ * @author https://scott.rodeo/
+ */
+public final class Palette {
+
+    public static final int EMPTY = Grid.EMPTY; // Index of an unoccupied cell.
+
+    // Piece colors.
+    public static final Color b1 = new Color(175, 18, 202);
+    public static final Color b2 = new Color(101, 216, 246);
+    public static final Color b3 = new Color(74, 125, 255);
+    public static final Color b4 = new Color(79, 255, 254);
+    public static final Color b5 = new Color(230, 56, 174);
+    public static final Color b6 = new Color(249, 116, 122);
+    public static final Color b7 = new Color(45, 50, 116);
+    public static final Color b8 = new Color(99, 32, 178);
+    public static final Color b9 = new Color(65, 84, 203);
+
+    // Colors by palette index; one for each of the Grid.COLORS indices.
+    private static final Color[] COLORS = {
+        Color.WHITE,
+        b1, b2, b3,
+        b4, b5, b6,
+        b7, b8, b9
+    };
+
+    private Palette() {
+        // Static registry; not instantiable.
+    }
+
+    /**
+     * Resolves a palette index to its color.
+     *
+     * @param index The palette index.
+     * @return The color registered at that index.
+     */
+    public static Color getColor(int index) {
+        if (index < 0 || index >= COLORS.length) {
+            throw new IllegalArgumentException("Invalid palette index: " + index);
+        }
+        return COLORS[index];
+    }
+
+    /**
+     * Finds the palette index of a registered color.
+     *
+     * @param color The color to look up.
+     * @return The index of the color in the palette.
+     */
+    public static int indexOf(Color color) {
+        for (int i = 0; i < COLORS.length; i++) {
+            if (COLORS[i].equals(color)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Color is not in the palette: " + color);
+    }
+
+    /**
+     * Gets the number of colors in the palette, including the empty color.
+     *
+     * @return The palette size.
+     */
+    public static int size() {
+        return COLORS.length;
+    }
+}
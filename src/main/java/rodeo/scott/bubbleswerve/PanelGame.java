@@ -20,10 +20,8 @@ import java.io.File;
  * 
  * @author https://scott.rodeo/
  */
-public class PanelGame extends JPanel {
+public class PanelGame extends JPanel implements GameListener {
 
-    public static boolean atBottom;
-    public static boolean downPushed;
     private boolean firstUnmaximize = true;
 
     private int clickX = -1;
@@ -38,8 +36,9 @@ public class PanelGame extends JPanel {
     private CardLayout cardLayout;
 	private Engine engine;
 
-	// Declare timer as a class-level variable
-    private Timer timer;
+    private FrameSnapshot paintedFrame; // The frame being painted, published by the game loop.
+    private final BubblePainter painter = new BubblePainter(); // Draws the bubbles of the board.
+    private final BubblePainter previewPainter = new BubblePainter(); // Draws the upcoming pieces, at half size.
 
     
     /**
@@ -75,6 +74,18 @@ public class PanelGame extends JPanel {
         repaint(); // Trigger a repaint to refresh the panel's display.
     }
 
+
+    /**
+     * Repaints the panel when the game loop publishes a new frame.
+     * Called on the loop thread; repaint() is safe to call from any thread.
+     *
+     * @param frame The new frame.
+     */
+    @Override
+    public void frameReady(FrameSnapshot frame) {
+        repaint();
+    }
+
     
     /**
      * Renders the components of the game panel, including the grid, selected avatar,
@@ -85,7 +96,15 @@ public class PanelGame extends JPanel {
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g); // Clear the previous drawing.
-        engine.getGame().draw(g); // Draw the game grid and active piece.
+
+        // Paint the latest snapshot; the game itself is never read while painting.
+        FrameSnapshot frame = engine.getGame().getSnapshot();
+        if (frame == null) {
+            return; // Nothing has been published yet.
+        }
+        paintedFrame = frame;
+        drawBoard(g, frame); // Draw the game grid and active piece.
+        drawPreview(g, frame); // Draw the upcoming pieces beside the grid.
 
         // Draw the selected avatar at the bottom-right corner.
         if (selectedAvatar != null) {
@@ -108,9 +127,9 @@ public class PanelGame extends JPanel {
         */
 
         // Render the ClearLine Power-Up icon if the power-up is active.
-        if (engine.getGame().isPowerupActive()) {
+        if (frame.isPowerupActive()) {
             int cellSize = getCellSize(); // Get the size of a grid cell.
-            PowerUpType activePowerUpType = getPowerupType(); // Determine the active power-up type.
+            PowerUpType activePowerUpType = frame.getPowerupType(); // Determine the active power-up type.
 
             Object powerupIcon = null;
 
@@ -132,8 +151,8 @@ public class PanelGame extends JPanel {
 
             if (powerupIcon != null) {
                 clearLineImage = new ImageIcon((String) powerupIcon).getImage();
-                int drawCoordX = (engine.getGame().getpowerupX() * cellSize) + Grid.LEFT;
-                int drawCoordY = (engine.getGame().getpowerupY() * cellSize) + Grid.TOP;
+                int drawCoordX = (frame.getPowerupX() * cellSize) + painter.getLeft();
+                int drawCoordY = (frame.getPowerupY() * cellSize) + painter.getTop();
 
                 g.drawImage(
                     clearLineImage,
@@ -146,7 +165,7 @@ public class PanelGame extends JPanel {
         }
 
         // Display "Game Over" text if the game is over.
-        if (engine.getGame().isGameOver()) {
+        if (frame.isGameOver()) {
             g.setFont(new Font("Palatino", Font.BOLD, 40));
             g.setColor(Color.BLACK);
             // g.drawString("GAME OVER", 80, 300); // Uncomment to display "GAME OVER".
@@ -155,8 +174,74 @@ public class PanelGame extends JPanel {
         // Render the score and level indicators at the top-left corner.
         g.setFont(new Font("Arial", Font.BOLD, 16));
         g.setColor(Color.WHITE);
-        g.drawString("Score: " + engine.getGame().getScore(), 20, 50); // Display score.
-        g.drawString("Level: " + engine.getGame().getLevel(), 20, 80); // Display level below score.
+        g.drawString("Score: " + frame.getScore(), 20, 50); // Display score.
+        g.drawString("Level: " + frame.getLevel(), 20, 80); // Display level below score.
+    }
+
+
+    /**
+     * Draws the board of a snapshot: the locked bubbles, the ghost of the active piece
+     * at its landing position, and the active piece itself.
+     *
+     * @param g     The Graphics context used for rendering.
+     * @param frame The snapshot to draw.
+     */
+    private void drawBoard(Graphics g, FrameSnapshot frame) {
+        // Place the grid in the middle of the panel.
+        painter.setLayout(calculateLeft(), calculateTop(), getCellSize());
+
+        // Draw the filled bubbles in the grid (empty cells are not rendered).
+        for (int row = 0; row < frame.getHeight(); row++) {
+            for (int col = 0; col < frame.getWidth(); col++) {
+                painter.paintBubble(g, row, col, frame.getColor(row, col));
+            }
+        }
+
+        // Draw the ghost first so the piece covers it where they overlap.
+        int color = frame.getPieceColor();
+        if (frame.getGhostRowOffset() != 0 || frame.getGhostColOffset() != 0) {
+            for (int i = 0; i < frame.getPieceCellCount(); i++) {
+                painter.paintGhost(g, frame.getPieceRow(i) + frame.getGhostRowOffset(), frame.getPieceCol(i) + frame.getGhostColOffset(), color);
+            }
+        }
+        for (int i = 0; i < frame.getPieceCellCount(); i++) {
+            painter.paintBubble(g, frame.getPieceRow(i), frame.getPieceCol(i), color);
+        }
+    }
+
+
+    /**
+     * Draws the upcoming pieces of a snapshot in a column to the right of the grid, next
+     * piece at the top, each in its spawn rotation state.
+     *
+     * @param g     The Graphics context used for rendering.
+     * @param frame The snapshot to draw.
+     */
+    private void drawPreview(Graphics g, FrameSnapshot frame) {
+        int cellSize = painter.getCellSize();
+        int size = Math.max(1, cellSize / 2); // Preview bubbles are half the size of the board's.
+        int left = painter.getLeft() + (frame.getWidth() + 1) * cellSize;
+        int top = painter.getTop();
+
+        for (int p = 0; p < frame.getPreviewCount(); p++) {
+            BubbloidShape shape = frame.getPreviewShape(p);
+
+            // Find the top left of the shape's cells, to draw it from the top left of its slot.
+            int minRow = Integer.MAX_VALUE;
+            int minCol = Integer.MAX_VALUE;
+            int maxRow = Integer.MIN_VALUE;
+            for (int i = 0; i < shape.size(); i++) {
+                minRow = Math.min(minRow, shape.getRowOffset(0, i));
+                minCol = Math.min(minCol, shape.getColOffset(0, i));
+                maxRow = Math.max(maxRow, shape.getRowOffset(0, i));
+            }
+
+            previewPainter.setLayout(left, top, size);
+            for (int i = 0; i < shape.size(); i++) {
+                previewPainter.paintBubble(g, shape.getRowOffset(0, i) - minRow, shape.getColOffset(0, i) - minCol, shape.getColor());
+            }
+            top += (maxRow - minRow + 2) * size; // One empty row between pieces.
+        }
     }
 
 
@@ -172,8 +257,8 @@ public class PanelGame extends JPanel {
         int windowWidth = size.width; // The width of the game window.
         int windowHeight = size.height - insets.top; // The height of the game window minus the top inset.
 
-        int gridWidth = engine.game.grid.WIDTH; // Number of columns in the game grid.
-        int gridHeight = engine.game.grid.HEIGHT; // Number of rows in the game grid.
+        int gridWidth = getGridWidth(); // Number of columns in the game grid.
+        int gridHeight = getGridHeight(); // Number of rows in the game grid.
 
         // Calculate the maximum size of the grid that fits within the window dimensions.
         int windowMax = Math.min(windowWidth - 200, windowHeight - 200);
@@ -195,7 +280,7 @@ public class PanelGame extends JPanel {
         Dimension size = engine.getProgramWindow().getContentPane().getSize(); // Get the size of the game window.
 
         int windowWidth = size.width; // The total width of the window.
-        int gridWidth = engine.game.grid.WIDTH * getCellSize(); // The width of the grid in pixels.
+        int gridWidth = getGridWidth() * getCellSize(); // The width of the grid in pixels.
 
         // Calculate the left margin needed to center the grid.
         int leftMargin = (windowWidth - gridWidth) / 2;
@@ -217,7 +302,7 @@ public class PanelGame extends JPanel {
 
         int windowHeight = size.height - insets.top; // The height of the window minus the top inset.
 
-        int gridHeight = engine.game.grid.HEIGHT * getCellSize(); // The height of the grid in pixels.
+        int gridHeight = getGridHeight() * getCellSize(); // The height of the grid in pixels.
 
         // Calculate the top margin needed to center the grid vertically.
         int topMargin = (windowHeight - gridHeight) / 2;
@@ -228,238 +313,68 @@ public class PanelGame extends JPanel {
 
     
     /**
-     * Retrieves the currently active power-up type in the game.
+     * Gets the number of columns of the grid being painted.
      *
-     * @return The active PowerUpType, or null if no power-up is active.
+     * @return The width of the painted frame, or of the game's grid before the first frame.
      */
-    private PowerUpType getPowerupType() {
-        // Delegate to the game's method to get the active power-up type.
-        return engine.getGame().getPowerupType();
+    private int getGridWidth() {
+        return paintedFrame != null ? paintedFrame.getWidth() : engine.game.grid.WIDTH;
     }
 
+
+    /**
+     * Gets the number of rows of the grid being painted.
+     *
+     * @return The height of the painted frame, or of the game's grid before the first frame.
+     */
+    private int getGridHeight() {
+        return paintedFrame != null ? paintedFrame.getHeight() : engine.game.grid.HEIGHT;
+    }
+
+
        
 
     
     /**
      * Configures key bindings for player controls within the game panel.
-     * This method maps specific key presses to corresponding game actions.
+     * Each key only queues a timestamped command for the game loop, which decides what the
+     * key does for the current orientation of the board.
      */
     private void setupKeyBindings() {
     	
     	InputMap inputMap = getInputMap(WHEN_IN_FOCUSED_WINDOW);
         ActionMap actionMap = getActionMap();
 
-        // Bind "LEFT"
-        inputMap.put(KeyStroke.getKeyStroke("LEFT"), "moveLeft");
-        inputMap.put(KeyStroke.getKeyStroke("A"), "moveLeft");
-        actionMap.put("moveLeft", new AbstractAction() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-            	
-	           if (!engine.getGame().getPaused()) { 
-	            		
-        	        switch (engine.getGame().currentOrientation) {
-	    	            case DOWN: // Default orientation (no changes needed)
-	    	            	engine.getGame().handleMove(Direction.LEFT);
-	    	                break;
-	
-	    	            case UP: // Upside-down orientation
-	    	            	engine.getGame().handleMove(Direction.LEFT);
-	    	                break;
-	
-	    	            case LEFT: // Rotated left (counterclockwise 90°)
-	    	            	engine.getGame().softDrop(); // Calls the softDrop method in Game
-	    	                break;
-	
-	    	            case RIGHT: // Rotated right (clockwise 90°)
-	    	            	engine.getGame().handleRotate(0);// "Rotate Clockwise"
-	    	                break;
-        	        }
-
-	                repaint();
-	                engine.getGame().checkPowerUpCollection(); // Check for power-up collision
-            	}
-            }
-        });
-
-        // Bind "RIGHT"
-        inputMap.put(KeyStroke.getKeyStroke("RIGHT"), "moveRight");
-        inputMap.put(KeyStroke.getKeyStroke("D"), "moveRight");
-        actionMap.put("moveRight", new AbstractAction() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-            	
-            	if (!engine.getGame().getPaused())  {
-        	        switch (engine.getGame().currentOrientation) {
-    	            case DOWN: // Default orientation (no changes needed)
-    	            	engine.getGame().handleMove(Direction.RIGHT);
-    	                break;
-
-    	            case UP: // Upside-down orientation
-    	            	engine.getGame().handleMove(Direction.RIGHT);
-    	                break;
-
-    	            case LEFT: // Rotated left (counterclockwise 90°)
-    	            	engine.getGame().handleRotate(0);// "Rotate Clockwise"
-    	                break;
-
-    	            case RIGHT: // Rotated right (clockwise 90°)
-    	            	engine.getGame().softDrop(); // Calls the softDrop method in Game
-    	                break;
-    	        }
-	                repaint();
-	                engine.getGame().checkPowerUpCollection(); // Check for power-up collision
-            	}
-            }
-        });
-
-        // Bind "DOWN"
-        inputMap.put(KeyStroke.getKeyStroke("DOWN"), "softDrop");
-        inputMap.put(KeyStroke.getKeyStroke("S"), "softDrop");
-        actionMap.put("softDrop", new AbstractAction() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-            	if (!engine.getGame().getPaused())  {
-            		
-        	        switch (engine.getGame().currentOrientation) {
-    	            case DOWN: // Default orientation (no changes needed)
-    	            	engine.getGame().softDrop(); // Calls the softDrop method in Game
-    	                break;
-
-    	            case UP: // Upside-down orientation
-    	            	engine.getGame().handleRotate(0);// "Rotate Clockwise"	    	               
-    	                break;
-
-    	            case LEFT: // Rotated left (counterclockwise 90°)
-    	            	engine.getGame().handleMove(Direction.DOWN);
-    	                break;
-
-    	            case RIGHT: // Rotated right (clockwise 90°)
-    	            	engine.getGame().handleMove(Direction.DOWN);
-    	                break;
-	    	        }
-	                
-	                repaint();
-	                engine.getGame().checkPowerUpCollection(); // Check for power-up collision
-	                
-            	}
-            }
-        });
-
-        // Bind "UP"
-        inputMap.put(KeyStroke.getKeyStroke("UP"), "rotateClockwise");
-        inputMap.put(KeyStroke.getKeyStroke("W"), "rotateClockwise");
-        actionMap.put("rotateClockwise", new AbstractAction() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-            	if (!engine.getGame().getPaused())  {
-        	        switch (engine.getGame().currentOrientation) {
-    	            case DOWN: // Default orientation (no changes needed)
-    	            	engine.getGame().handleRotate(0);// "Rotate Clockwise"	 
-    	                break;
-
-    	            case UP: // Upside-down orientation
-    	            	engine.getGame().softDrop(); // Calls the softDrop method in Game    	               
-    	                break;
-
-    	            case LEFT: // Rotated left (counterclockwise 90°)
-    	            	engine.getGame().handleMove(Direction.UP);
-    	                break;
-
-    	            case RIGHT: // Rotated right (clockwise 90°)
-    	            	engine.getGame().handleMove(Direction.UP);
-    	                break;
-	    	        }
-	                
-	                repaint();
-	                engine.getGame().checkPowerUpCollection(); // Check for power-up collision
-            	}
-            }
-        });
-        
-        // Bind "Hard Drop"
-        inputMap.put(KeyStroke.getKeyStroke("SPACE"), "hardDrop");
-        actionMap.put("hardDrop", new AbstractAction() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-            	if (!engine.getGame().getPaused())  {
-            		
-            		engine.getGame().hardDrop(); // Calls the hardDrop method in Game
-	                repaint();
-            	}
-            }
-        });
-
-        // Bind "Rotate Counterclockwise"
-        inputMap.put(KeyStroke.getKeyStroke("released SHIFT"), "rotateCounterclockwise");
-        inputMap.put(KeyStroke.getKeyStroke("Q"), "rotateCounterclockwise");
-        actionMap.put("rotateCounterclockwise", new AbstractAction() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-            	if (!engine.getGame().getPaused())  {
-            		engine.getGame().handleRotate(1);// "Rotate Counterclockwise"
-	                repaint();
-            	}
-            }
-        });
-    
-        // Bind Escape to pause
-        inputMap.put(KeyStroke.getKeyStroke("P"), "pauseGame");
-        inputMap.put(KeyStroke.getKeyStroke("ESCAPE"), "pauseGame");
-        actionMap.put("pauseGame", new AbstractAction() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-            	engine.getGame().togglePause();
-            }
-        });
-
-        // Rotate the board
-        inputMap.put(KeyStroke.getKeyStroke("R"), "rotateGame");
-        actionMap.put("rotateGame", new AbstractAction() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                if (engine.getGame() != null) { // Ensure the Game instance is accessible
-                	engine.getGame().rotateBoardClockwise(); // Rotate the board
-                }
-            }
-        });
-
+        bind(inputMap, actionMap, "moveLeft", Command.LEFT, "LEFT", "A");
+        bind(inputMap, actionMap, "moveRight", Command.RIGHT, "RIGHT", "D");
+        bind(inputMap, actionMap, "softDrop", Command.DOWN, "DOWN", "S");
+        bind(inputMap, actionMap, "rotateClockwise", Command.UP, "UP", "W");
+        bind(inputMap, actionMap, "hardDrop", Command.HARD_DROP, "SPACE");
+        bind(inputMap, actionMap, "rotateCounterclockwise", Command.ROTATE_COUNTERCLOCKWISE, "released SHIFT", "Q");
+        bind(inputMap, actionMap, "pauseGame", Command.TOGGLE_PAUSE, "P", "ESCAPE");
+        bind(inputMap, actionMap, "rotateGame", Command.ROTATE_BOARD, "R");
     }
 
 
     /**
-     * Resumes the game by ensuring the timer is running and restarting it if necessary.
-     * This method also resets the game-over flag and updates the game state periodically.
+     * Binds keys to a command submitted to the game loop.
+     *
+     * @param inputMap  The panel's input map.
+     * @param actionMap The panel's action map.
+     * @param name      Name of the action.
+     * @param command   The command the keys submit.
+     * @param keys      The key strokes to bind.
      */
-    void resumeGame() {
-        System.out.println("Game Resumes");
-        engine.getGame().gameIsOver = false; // Reset the game-over flag.
-
-        // Initialize and start the timer if it is null or not running.
-        if (timer == null || !timer.isRunning()) {
-            timer = new Timer(500, new ActionListener() {
-                @Override
-                public void actionPerformed(ActionEvent e) {
-                    if (!engine.getGame().getPaused()) { // Check if the game is not paused.
-                        if (engine.getGame().isGameOver()) {
-                            timer.stop(); // Stop the timer if the game is over.
-                            engine.getGame().GameOverScreen(); // Display the game-over screen.
-                        } else {
-                            engine.getGame().updateState(); // Update the game state.
-                            repaint(); // Redraw the game panel.
-                        }
-                    }
-                }
-            });
-            timer.start(); // Start the timer.
-        } else {
-            timer.restart(); // Restart the timer if it already exists.
+    private void bind(InputMap inputMap, ActionMap actionMap, String name, Command command, String... keys) {
+        for (String key : keys) {
+            inputMap.put(KeyStroke.getKeyStroke(key), name);
         }
+        actionMap.put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                engine.getGame().getLoop().submit(command);
+            }
+        });
     }
 
-  
-    
 }
-
-
-
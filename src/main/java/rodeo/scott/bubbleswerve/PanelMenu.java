@@ -44,11 +44,11 @@ public class PanelMenu extends JPanel {
             JButton aboutButton = createStyledButton("About");
 
             // Add action listener for the restart button.
-            restartButton.addActionListener(e -> engine.getGame().gameRestart());
+            restartButton.addActionListener(e -> engine.getGame().getLoop().submit(Command.RESTART));
 
             // Add action listener for the about button.
             aboutButton.addActionListener(e -> {
-                engine.getGame().pauseGame(); // Pause the game.
+                engine.getGame().getLoop().submit(Command.PAUSE); // Pause the game.
 
                 // Game info
                 String version = "1.0.0"; // Or however you retrieve this
@@ -76,7 +76,7 @@ public class PanelMenu extends JPanel {
 
                 // Create a dialog box to show the about message
                 JOptionPane.showMessageDialog(null, label, "About", JOptionPane.INFORMATION_MESSAGE);
-                engine.getGame().resumeGame();
+                engine.getGame().getLoop().submit(Command.RESUME);
             });
 
 
@@ -0,0 +1,162 @@
+package rodeo.scott.bubbleswerve;
+
+/**
+ * Rule that deals the shapes of a game's pieces.
+ * A generator maps the game's seed and the number of a piece to a shape id, so the pieces of
+ * a game can be dealt ahead of time, looked up again after a restore, and saved as nothing
+ * more than the count of pieces dealt. Generators draw from their own stream, apart from the
+ * game's random source, so previewing pieces does not change where power-ups appear.
+ *
+ * @author https://scott.rodeo/
+ */
+public interface PieceGenerator {
+
+    /**
+     * Gets the shape of a piece.
+     *
+     * @param seed  The seed of the game.
+     * @param index The number of the piece in the game, from 0.
+     * @return The id of the piece's shape in the game's ShapeRegistry.
+     */
+    int shapeAt(long seed, long index);
+
+    /**
+     * Gets the number of shapes the generator deals from.
+     *
+     * @return The shape count; ids run from 0 to this count - 1.
+     */
+    int getShapeCount();
+
+    /**
+     * Creates a generator that picks every shape independently with equal chance. Any shape
+     * can follow any other, so long droughts of one shape are possible.
+     *
+     * @param shapes The number of shapes.
+     * @return The generator.
+     */
+    static PieceGenerator uniform(int shapes) {
+        if (shapes <= 0) {
+            throw new IllegalArgumentException("Shape count must be positive: " + shapes);
+        }
+        return new PieceGenerator() {
+            @Override
+            public int shapeAt(long seed, long index) {
+                // Multiply-shift of 32 random bits; the bias is below shapes / 2^32.
+                return (int) (((draw(seed, index) >>> 32) * shapes) >>> 32);
+            }
+
+            @Override
+            public int getShapeCount() {
+                return shapes;
+            }
+        };
+    }
+
+    /**
+     * Creates a bag generator: the shapes are dealt in bags holding every shape once, each bag
+     * shuffled. With nine shapes this is a 9-bag; no shape is ever more than 2 * shapes - 2
+     * pieces away from the last one of its kind.
+     *
+     * @param shapes The number of shapes.
+     * @return The generator.
+     */
+    static PieceGenerator bag(int shapes) {
+        return new Bag(shapes);
+    }
+
+    /**
+     * Creates a generator that picks every shape independently, with a chance proportional to
+     * its weight.
+     *
+     * @param weights The weight of each shape, by id; not negative, and not all zero.
+     * @return The generator.
+     */
+    static PieceGenerator weighted(double[] weights) {
+        if (weights.length == 0) {
+            throw new IllegalArgumentException("No shape weights given");
+        }
+        double[] cumulative = new double[weights.length];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (!(weights[i] >= 0) || Double.isInfinite(weights[i])) {
+                throw new IllegalArgumentException("Invalid weight for shape " + i + ": " + weights[i]);
+            }
+            total += weights[i];
+            cumulative[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Shape weights are all zero");
+        }
+        double sum = total;
+        return new PieceGenerator() {
+            @Override
+            public int shapeAt(long seed, long index) {
+                double target = ((draw(seed, index) >>> 11) * 0x1.0p-53) * sum;
+                for (int i = 0; i < cumulative.length - 1; i++) {
+                    if (target < cumulative[i]) {
+                        return i;
+                    }
+                }
+                return cumulative.length - 1;
+            }
+
+            @Override
+            public int getShapeCount() {
+                return cumulative.length;
+            }
+        };
+    }
+
+    /**
+     * Gets random bits for a piece: the output of a SplitMix64 stream at the piece's number.
+     *
+     * @param seed  The seed of the game.
+     * @param index The number of the piece.
+     * @return 64 random bits.
+     */
+    private static long draw(long seed, long index) {
+        // The salt keeps the pieces apart from the game's random source, which starts from the seed itself.
+        return GameRandom.mix64(GameRandom.mix64(seed ^ 0x62616773L) + index * 0x9e3779b97f4a7c15L);
+    }
+
+    /**
+     * Generator dealing shuffled bags of every shape. The last bag is kept, so dealing a bag in
+     * order shuffles it once. Owned by one game, like its random source.
+     */
+    final class Bag implements PieceGenerator {
+
+        private final int[] order;    // Shapes of the last bag, in dealing order.
+        private long bagSeed;         // Seed of the game the last bag was dealt for.
+        private long bagIndex = -1;   // Number of the last bag, -1 before the first.
+        private final GameRandom shuffler = new GameRandom(0); // Reseeded for every bag.
+
+        Bag(int shapes) {
+            if (shapes <= 0) {
+                throw new IllegalArgumentException("Shape count must be positive: " + shapes);
+            }
+            order = new int[shapes];
+        }
+
+        @Override
+        public int shapeAt(long seed, long index) {
+            long bag = index / order.length;
+            if (bag != bagIndex || seed != bagSeed) {
+                // Fisher-Yates shuffle of the bag, from the random bits of its first piece.
+                shuffler.setState(draw(seed, bag * order.length));
+                for (int i = 0; i < order.length; i++) {
+                    int j = shuffler.nextInt(i + 1);
+                    order[i] = order[j];
+                    order[j] = i;
+                }
+                bagIndex = bag;
+                bagSeed = seed;
+            }
+            return order[(int) (index % order.length)];
+        }
+
+        @Override
+        public int getShapeCount() {
+            return order.length;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package rodeo.scott.bubbleswerve;
+
+/**
+ * The upcoming pieces of a game, for the preview and for players that plan ahead.
+ * The queue is a fixed-size ring buffer of pieces dealt by the game's PieceGenerator and
+ * built ahead of time: spawning a piece takes the head of the queue and only moves it to the
+ * spawn position, and the slot it leaves is filled by fill() once the step's game logic is
+ * done, with a piece from the game's BubbloidPool. Used on the loop thread only; front ends
+ * read the preview from the FrameSnapshot.
+ *
+ * @author https://scott.rodeo/
+ */
+public class PieceQueue {
+
+    public static final int DEFAULT_SIZE = 3; // Upcoming pieces shown by default.
+
+    private final AbstractBubbloid[] pieces;  // Built pieces, oldest at head; null while a slot waits for fill().
+    private final int[] shapeIds;             // Shape id of every slot.
+    private final BubbloidPool pool;          // Supplies the pieces and takes back the ones dealt again.
+    private int head;                         // Slot of the next piece.
+    private long dealt;                       // Pieces taken from the queue so far.
+    private PieceGenerator generator;         // Deals the shapes.
+    private ShapeRegistry shapes;             // Shapes the ids refer to.
+    private long seed;                        // Seed of the game.
+    private Grid grid;                        // Grid the pieces are built on.
+
+    /**
+     * Constructs a queue. It holds nothing until reset() is called.
+     *
+     * @param size The number of upcoming pieces to keep.
+     * @param pool The pool of the game's pieces.
+     */
+    public PieceQueue(int size, BubbloidPool pool) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Queue size must be positive: " + size);
+        }
+        pieces = new AbstractBubbloid[size];
+        shapeIds = new int[size];
+        this.pool = pool;
+    }
+
+    /**
+     * Deals the queue again from a given point of a game and builds every piece.
+     *
+     * @param generator The rule dealing the shapes.
+     * @param shapes    The shapes the generator's ids refer to.
+     * @param seed      The seed of the game.
+     * @param grid      The grid the pieces will be played on.
+     * @param dealt     The number of pieces already dealt in the game.
+     */
+    void reset(PieceGenerator generator, ShapeRegistry shapes, long seed, Grid grid, long dealt) {
+        if (generator.getShapeCount() > shapes.size()) {
+            throw new IllegalArgumentException("Generator deals " + generator.getShapeCount()
+                    + " shapes, but only " + shapes.size() + " are loaded");
+        }
+        this.generator = generator;
+        this.shapes = shapes;
+        this.seed = seed;
+        this.grid = grid;
+        this.dealt = dealt;
+        head = 0;
+        for (int i = 0; i < pieces.length; i++) {
+            shapeIds[i] = generator.shapeAt(seed, dealt + i);
+            if (pieces[i] != null) {
+                pool.release(pieces[i]);
+                pieces[i] = null;
+            }
+        }
+        fill();
+    }
+
+    /**
+     * Builds the pieces of the empty slots.
+     */
+    void fill() {
+        for (int i = 0; i < pieces.length; i++) {
+            if (pieces[i] == null) {
+                pieces[i] = pool.acquire(shapes.get(shapeIds[i]), grid);
+            }
+        }
+    }
+
+    /**
+     * Takes the next piece and deals a new shape onto the end of the queue. The piece is
+     * built already, unless several were taken since the last fill().
+     *
+     * @return The piece, in its spawn rotation state, to be placed by the caller.
+     */
+    AbstractBubbloid take() {
+        AbstractBubbloid piece = pieces[head];
+        if (piece == null) {
+            piece = pool.acquire(shapes.get(shapeIds[head]), grid);
+        }
+        pieces[head] = null;
+        shapeIds[head] = generator.shapeAt(seed, dealt + pieces.length);
+        head = (head + 1) % pieces.length;
+        dealt++;
+        return piece;
+    }
+
+    /**
+     * Gets the shape of an upcoming piece.
+     *
+     * @param i 0 for the next piece, 1 for the one after it, and so on.
+     * @return The shape.
+     */
+    public BubbloidShape peek(int i) {
+        if (i < 0 || i >= pieces.length) {
+            throw new IllegalArgumentException("Preview has " + pieces.length + " pieces: " + i);
+        }
+        return shapes.get(shapeIds[(head + i) % pieces.length]);
+    }
+
+    /**
+     * Gets the number of upcoming pieces the queue holds.
+     *
+     * @return The queue size.
+     */
+    public int size() {
+        return pieces.length;
+    }
+
+    /**
+     * Gets the number of pieces taken from the queue since the game started.
+     *
+     * @return The number of pieces dealt.
+     */
+    public long getDealt() {
+        return dealt;
+    }
+
+    /**
+     * Gets the rule dealing the shapes.
+     *
+     * @return The generator.
+     */
+    public PieceGenerator getGenerator() {
+        return generator;
+    }
+}
@@ -0,0 +1,215 @@
+package rodeo.scott.bubbleswerve;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays back a recorded game by running the journal's commands through a fresh Game with the
+ * recorded seed, so a replay is the original game and not an approximation of it.
+ *
+ * While playing forward the player keeps a full GameState checkpoint every few seconds of
+ * game time. Seeking restores the last checkpoint at or before the target and re-simulates
+ * only the ticks after it, so a seek costs at most one checkpoint interval of simulation.
+ * Fast-forwarding runs headless, without building frames; a snapshot is only published for
+ * the tick that is shown.
+ *
+ * Started with "--replay" as the first argument of the Launcher.
+ *
+ * @author https://scott.rodeo/
+ */
+public class ReplayPlayer {
+
+    public static final int DEFAULT_CHECKPOINT_TICKS = 10 * GameLoop.TICKS_PER_SECOND; // Ticks between checkpoints.
+
+    private final GameJournal.Recording recording;           // The recorded game.
+    private final Game game;                                 // Replays the recording.
+    private final GameLoop loop;                             // Steps the game by hand.
+    private final int checkpointTicks;                       // Ticks between checkpoints.
+    private final List<GameState> checkpoints = new ArrayList<>(); // Checkpoint k is the state at tick k * checkpointTicks.
+    private int next;                                        // Index of the next recorded command.
+
+    /**
+     * Constructs a player at tick 0 of a recording, with the default checkpoint interval.
+     *
+     * @param recording The recorded game.
+     */
+    public ReplayPlayer(GameJournal.Recording recording) {
+        this(recording, DEFAULT_CHECKPOINT_TICKS);
+    }
+
+    /**
+     * Constructs a player at tick 0 of a recording.
+     *
+     * @param recording       The recorded game.
+     * @param checkpointTicks The number of ticks between checkpoints; smaller is faster to seek
+     *                        and takes more memory.
+     */
+    public ReplayPlayer(GameJournal.Recording recording, int checkpointTicks) {
+        if (checkpointTicks <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive: " + checkpointTicks);
+        }
+        this.recording = recording;
+        this.checkpointTicks = checkpointTicks;
+        game = new Game(recording.getSeed());
+        game.setLogging(false);
+        loop = game.getLoop();
+        loop.setPublishing(false);
+        checkpoints.add(game.saveState());
+    }
+
+    /**
+     * Gets the game being replayed, e.g. to add a GameListener for rendering.
+     *
+     * @return The game.
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * Gets the recording being played.
+     *
+     * @return The recording.
+     */
+    public GameJournal.Recording getRecording() {
+        return recording;
+    }
+
+    /**
+     * Gets the tick the replay is at: the number of steps played.
+     *
+     * @return The current tick.
+     */
+    public long getTick() {
+        return loop.getTick();
+    }
+
+    /**
+     * Gets the last tick of the recording.
+     *
+     * @return The end tick.
+     */
+    public long getEndTick() {
+        return recording.getEndTick();
+    }
+
+    /**
+     * Gets the number of checkpoints taken so far.
+     *
+     * @return The checkpoint count.
+     */
+    public int getCheckpointCount() {
+        return checkpoints.size();
+    }
+
+    /**
+     * Plays one tick and publishes its frame, for playback at normal speed.
+     *
+     * @return False if the end of the recording has been reached.
+     */
+    public boolean step() {
+        if (loop.getTick() >= getEndTick()) {
+            return false;
+        }
+        advanceOne();
+        show();
+        return true;
+    }
+
+    /**
+     * Plays a number of ticks as fast as possible, without publishing frames.
+     *
+     * @param ticks The number of ticks to play; the replay stops at the end of the recording.
+     */
+    public void fastForward(long ticks) {
+        long target = Math.min(loop.getTick() + Math.max(ticks, 0), getEndTick());
+        while (loop.getTick() < target) {
+            advanceOne();
+        }
+    }
+
+    /**
+     * Moves the replay to a tick, from the nearest checkpoint at or before it, and publishes
+     * the frame of that tick.
+     *
+     * @param tick The tick to show; clamped to the recording.
+     */
+    public void seek(long tick) {
+        long target = Math.max(0, Math.min(tick, getEndTick()));
+        int k = (int) Math.min(target / checkpointTicks, checkpoints.size() - 1);
+        long checkpointTick = (long) k * checkpointTicks;
+
+        // Going back, or far enough forward to skip ticks, starts again from the checkpoint.
+        if (target < loop.getTick() || checkpointTick > loop.getTick()) {
+            game.restoreState(checkpoints.get(k));
+            next = recording.indexOf(checkpointTick);
+        }
+        fastForward(target - loop.getTick());
+        show();
+    }
+
+    /**
+     * Publishes the frame of the current tick to the game's listeners.
+     */
+    public void show() {
+        game.publishSnapshot(loop.getTick());
+    }
+
+    // Takes the checkpoint due at this tick, applies the commands recorded for it and steps
+    private void advanceOne() {
+        long tick = loop.getTick();
+        if (tick % checkpointTicks == 0 && tick / checkpointTicks == checkpoints.size()) {
+            checkpoints.add(game.saveState());
+        }
+        while (next < recording.size() && recording.getTick(next) == tick) {
+            game.applyCommand(recording.getCommand(next++));
+        }
+        loop.step();
+    }
+
+    /**
+     * Entry point of the replay mode: plays a journal headless and prints where it ends,
+     * optionally seeking to a tick first.
+     *
+     * @param args The command-line arguments: "--replay", the journal file and optionally
+     *             "--seek" with a tick.
+     */
+    public static void run(String[] args) {
+        if (args.length != 2 && !(args.length == 4 && args[2].equals("--seek"))) {
+            System.out.println("Usage: --replay <journal> [--seek <tick>]");
+            return;
+        }
+        GameJournal.Recording recording;
+        try {
+            recording = GameJournal.read(args[1]);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Cannot read " + args[1] + ": " + e.getMessage());
+            return;
+        }
+        System.out.println("Journal: seed " + recording.getSeed() + ", " + recording.size() + " commands, "
+                + recording.getEndTick() + " ticks" + (recording.isComplete() ? "" : " (cut short)"));
+
+        ReplayPlayer player = new ReplayPlayer(recording);
+        long start = System.nanoTime();
+        player.fastForward(player.getEndTick());
+        long elapsed = System.nanoTime() - start;
+        Game game = player.getGame();
+        System.out.printf("End: score %d, level %d, lines %d%s (replayed in %.1f ms)%n", game.getScore(), game.getLevel(),
+                game.getLinesCleared(), game.isGameOver() ? ", game over" : "", elapsed / 1e6);
+
+        if (args.length == 4) {
+            long tick;
+            try {
+                tick = Long.parseLong(args[3]);
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid tick: " + args[3]);
+                return;
+            }
+            start = System.nanoTime();
+            player.seek(tick);
+            elapsed = System.nanoTime() - start;
+            System.out.printf("Tick %d: score %d, level %d, lines %d (seek took %.2f ms)%n", player.getTick(),
+                    game.getScore(), game.getLevel(), game.getLinesCleared(), elapsed / 1e6);
+        }
+    }
+}
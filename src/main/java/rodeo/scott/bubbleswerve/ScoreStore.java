@@ -0,0 +1,506 @@
+package rodeo.scott.bubbleswerve;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Local leaderboard and per-player statistics, kept in two files of a directory.
+ *
+ * scores.log is an append-only log of every finished game, one RECORD_BYTES record each, so a
+ * game is found by its record number without reading the others. scores.idx is a fixed-size,
+ * memory-mapped index holding the TOP_CAPACITY best games (score and record number, best first)
+ * and an open-addressing table of PLAYER_SLOTS players with their running totals. Top-N and
+ * player queries read only the index and the few log records they return, and opening the
+ * store maps the index instead of reading the log, so startup does not slow down as the
+ * history grows.
+ *
+ * A game is appended to the log before the index is updated, and the index counts the records
+ * it covers; records the index missed, for example after a crash, are indexed when the store
+ * is opened. A missing or damaged index is rebuilt from the log.
+ *
+ * Not thread-safe beyond its synchronized methods; one process per directory.
+ *
+ * @author https://scott.rodeo/
+ */
+public class ScoreStore implements Closeable {
+
+    public static final int TOP_CAPACITY = 100;     // Games kept in the leaderboard.
+    public static final int PLAYER_SLOTS = 4096;    // Players the statistics table can hold.
+    public static final int MAX_NAME_BYTES = 24;    // Longest player name, in UTF-8 bytes.
+
+    private static final int INDEX_MAGIC = 0x42535358; // "BSSX".
+    private static final int INDEX_VERSION = 1;
+    private static final int RECORD_BYTES = 64;     // Size of a log record.
+    private static final int TOP_ENTRY_BYTES = 8;   // Score and record number.
+    private static final int PLAYER_BYTES = 64;     // Size of a player slot.
+    private static final int HEADER_BYTES = 64;
+    private static final int TOP_OFFSET = HEADER_BYTES;
+    private static final int PLAYERS_OFFSET = TOP_OFFSET + TOP_CAPACITY * TOP_ENTRY_BYTES;
+    private static final int INDEX_BYTES = PLAYERS_OFFSET + PLAYER_SLOTS * PLAYER_BYTES;
+
+    // Header fields of the index.
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_RECORDS = 8;         // Log records covered by the index.
+    private static final int H_TOP_COUNT = 12;      // Entries used in the leaderboard.
+    private static final int H_PLAYERS = 16;        // Player slots used.
+
+    // Fields of a player slot, after the length byte and name.
+    private static final int P_GAMES = 32;
+    private static final int P_BEST_SCORE = 36;
+    private static final int P_BEST_LEVEL = 40;
+    private static final int P_LAST_RECORD = 44;
+    private static final int P_TOTAL_SCORE = 48;
+    private static final int P_TOTAL_LINES = 56;
+
+    /**
+     * One finished game, as read back from the log.
+     */
+    public static final class Entry {
+
+        private final int record;
+        private final String player;
+        private final long timestamp;
+        private final long seed;
+        private final long ticks;
+        private final int score;
+        private final int level;
+        private final int lines;
+
+        Entry(int record, String player, long timestamp, long seed, long ticks, int score, int level, int lines) {
+            this.record = record;
+            this.player = player;
+            this.timestamp = timestamp;
+            this.seed = seed;
+            this.ticks = ticks;
+            this.score = score;
+            this.level = level;
+            this.lines = lines;
+        }
+
+        public int getRecord() {
+            return record;
+        }
+
+        public String getPlayer() {
+            return player;
+        }
+
+        /**
+         * Gets the time the game was recorded.
+         *
+         * @return Milliseconds since the epoch.
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Gets the seed of the game, which finds its journal.
+         *
+         * @return The seed.
+         */
+        public long getSeed() {
+            return seed;
+        }
+
+        /**
+         * Gets the length of the game.
+         *
+         * @return The number of loop ticks played.
+         */
+        public long getTicks() {
+            return ticks;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public int getLines() {
+            return lines;
+        }
+    }
+
+    /**
+     * Running totals of one player, as read from the index.
+     */
+    public static final class PlayerStats {
+
+        private final String name;
+        private final int games;
+        private final int bestScore;
+        private final int bestLevel;
+        private final long totalScore;
+        private final long totalLines;
+        private final int lastRecord;
+
+        PlayerStats(String name, int games, int bestScore, int bestLevel, long totalScore, long totalLines, int lastRecord) {
+            this.name = name;
+            this.games = games;
+            this.bestScore = bestScore;
+            this.bestLevel = bestLevel;
+            this.totalScore = totalScore;
+            this.totalLines = totalLines;
+            this.lastRecord = lastRecord;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public int getBestScore() {
+            return bestScore;
+        }
+
+        public int getBestLevel() {
+            return bestLevel;
+        }
+
+        public long getTotalScore() {
+            return totalScore;
+        }
+
+        public long getTotalLines() {
+            return totalLines;
+        }
+
+        /**
+         * Gets the average score of the player's games.
+         *
+         * @return The mean score, 0 before the first game.
+         */
+        public double getAverageScore() {
+            return games == 0 ? 0 : (double) totalScore / games;
+        }
+
+        /**
+         * Gets the record number of the player's latest game, for ScoreStore.get().
+         *
+         * @return The record number.
+         */
+        public int getLastRecord() {
+            return lastRecord;
+        }
+    }
+
+    private final FileChannel log;              // The append-only game log.
+    private final FileChannel indexChannel;     // Keeps the index file open while mapped.
+    private final MappedByteBuffer index;       // The memory-mapped index.
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES); // Buffer for one log record.
+    private boolean playersFullReported;        // True once a full player table was reported.
+
+    /**
+     * Opens the store in a directory, creating its files if needed.
+     *
+     * @param directory The directory holding scores.log and scores.idx.
+     * @throws IOException If the files cannot be opened or mapped.
+     */
+    public ScoreStore(String directory) throws IOException {
+        Path dir = Paths.get(directory);
+        dir.toFile().mkdirs();
+        log = FileChannel.open(dir.resolve("scores.log"), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        indexChannel = FileChannel.open(dir.resolve("scores.idx"), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        boolean fresh = indexChannel.size() != INDEX_BYTES;
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_BYTES);
+
+        if (fresh || index.getInt(H_MAGIC) != INDEX_MAGIC || index.getInt(H_VERSION) != INDEX_VERSION
+                || index.getInt(H_RECORDS) > getLogRecords()) {
+            if (getLogRecords() > 0) {
+                System.out.println("Rebuilding score index from " + getLogRecords() + " games");
+            }
+            clearIndex();
+        }
+
+        // Index the games logged after the index was last written.
+        int logRecords = getLogRecords();
+        for (int r = index.getInt(H_RECORDS); r < logRecords; r++) {
+            Entry entry = get(r);
+            addToIndex(r, entry.getPlayer(), entry.getScore(), entry.getLevel(), entry.getLines());
+        }
+    }
+
+    // Number of complete records in the log; a torn last record is ignored and overwritten
+    private int getLogRecords() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, log.size() / RECORD_BYTES);
+    }
+
+    // Resets the index to an empty one covering no records
+    private void clearIndex() {
+        for (int i = 0; i < INDEX_BYTES; i += 8) {
+            index.putLong(i, 0);
+        }
+        index.putInt(H_MAGIC, INDEX_MAGIC);
+        index.putInt(H_VERSION, INDEX_VERSION);
+    }
+
+    /**
+     * Appends a finished game to the log and updates the leaderboard and the player's totals.
+     *
+     * @param player The player's name; truncated to MAX_NAME_BYTES.
+     * @param seed   The seed of the game.
+     * @param ticks  The number of loop ticks played.
+     * @param score  The final score.
+     * @param level  The level reached.
+     * @param lines  The lines cleared.
+     * @return The record number of the game.
+     * @throws IOException If the log cannot be written.
+     */
+    public synchronized int record(String player, long seed, long ticks, int score, int level, int lines) throws IOException {
+        byte[] name = encodeName(player);
+        int number = index.getInt(H_RECORDS);
+
+        record.clear();
+        record.putLong(System.currentTimeMillis());
+        record.putLong(seed);
+        record.putLong(ticks);
+        record.putInt(score);
+        record.putInt(level);
+        record.putInt(lines);
+        record.put((byte) name.length);
+        record.put(name);
+        record.position(RECORD_BYTES);
+        record.flip();
+        long position = (long) number * RECORD_BYTES;
+        while (record.hasRemaining()) {
+            position += log.write(record, position);
+        }
+
+        addToIndex(number, new String(name, StandardCharsets.UTF_8), score, level, lines);
+        return number;
+    }
+
+    // Adds a logged game to the leaderboard and player table, then counts it as indexed
+    private void addToIndex(int number, String player, int score, int level, int lines) {
+        // Leaderboard: insert after every entry with a score at least as high.
+        int count = index.getInt(H_TOP_COUNT);
+        int at = count;
+        while (at > 0 && index.getInt(TOP_OFFSET + (at - 1) * TOP_ENTRY_BYTES) < score) {
+            at--;
+        }
+        if (at < TOP_CAPACITY) {
+            int last = Math.min(count, TOP_CAPACITY - 1);
+            for (int i = last; i > at; i--) {
+                index.putLong(TOP_OFFSET + i * TOP_ENTRY_BYTES, index.getLong(TOP_OFFSET + (i - 1) * TOP_ENTRY_BYTES));
+            }
+            index.putInt(TOP_OFFSET + at * TOP_ENTRY_BYTES, score);
+            index.putInt(TOP_OFFSET + at * TOP_ENTRY_BYTES + 4, number);
+            index.putInt(H_TOP_COUNT, Math.min(count + 1, TOP_CAPACITY));
+        }
+
+        // Player totals.
+        byte[] name = encodeName(player);
+        int slot = findSlot(name);
+        if (slot < 0) {
+            if (!playersFullReported) {
+                System.out.println("Score store player table is full; new players get no statistics");
+                playersFullReported = true;
+            }
+        } else {
+            int base = PLAYERS_OFFSET + slot * PLAYER_BYTES;
+            if (index.get(base) == 0) {
+                index.put(base, (byte) name.length);
+                for (int i = 0; i < name.length; i++) {
+                    index.put(base + 1 + i, name[i]);
+                }
+                index.putInt(H_PLAYERS, index.getInt(H_PLAYERS) + 1);
+            }
+            index.putInt(base + P_GAMES, index.getInt(base + P_GAMES) + 1);
+            index.putInt(base + P_BEST_SCORE, Math.max(index.getInt(base + P_BEST_SCORE), score));
+            index.putInt(base + P_BEST_LEVEL, Math.max(index.getInt(base + P_BEST_LEVEL), level));
+            index.putInt(base + P_LAST_RECORD, number);
+            index.putLong(base + P_TOTAL_SCORE, index.getLong(base + P_TOTAL_SCORE) + score);
+            index.putLong(base + P_TOTAL_LINES, index.getLong(base + P_TOTAL_LINES) + lines);
+        }
+
+        index.putInt(H_RECORDS, number + 1); // Written last: the game is now fully indexed.
+    }
+
+    // Slot holding a name, or the empty slot it would go into; -1 if the table is full
+    private int findSlot(byte[] name) {
+        int slot = (Arrays.hashCode(name) & 0x7FFFFFFF) % PLAYER_SLOTS;
+        for (int probe = 0; probe < PLAYER_SLOTS; probe++) {
+            int base = PLAYERS_OFFSET + slot * PLAYER_BYTES;
+            int length = index.get(base);
+            if (length == 0) {
+                return slot;
+            }
+            if (length == name.length && nameEquals(base + 1, name)) {
+                return slot;
+            }
+            slot = (slot + 1) % PLAYER_SLOTS;
+        }
+        return -1;
+    }
+
+    // Compares the name stored at an index offset with a name
+    private boolean nameEquals(int offset, byte[] name) {
+        for (int i = 0; i < name.length; i++) {
+            if (index.get(offset + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // UTF-8 bytes of a player name, cut to MAX_NAME_BYTES without splitting a character
+    private static byte[] encodeName(String player) {
+        String name = (player == null || player.isEmpty()) ? "player" : player;
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_NAME_BYTES) {
+            return bytes;
+        }
+        int length = MAX_NAME_BYTES;
+        while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--; // Back up to the start of a character.
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+
+    /**
+     * Reads one game from the log.
+     *
+     * @param number The record number.
+     * @return The game.
+     * @throws IOException If the log cannot be read.
+     */
+    public synchronized Entry get(int number) throws IOException {
+        if (number < 0 || number >= getLogRecords()) {
+            throw new IllegalArgumentException("No score record " + number);
+        }
+        record.clear();
+        long position = (long) number * RECORD_BYTES;
+        while (record.hasRemaining()) {
+            int read = log.read(record, position + record.position());
+            if (read < 0) {
+                throw new IOException("Score log ends inside record " + number);
+            }
+        }
+        record.flip();
+        long timestamp = record.getLong();
+        long seed = record.getLong();
+        long ticks = record.getLong();
+        int score = record.getInt();
+        int level = record.getInt();
+        int lines = record.getInt();
+        int length = Math.min(record.get(), MAX_NAME_BYTES);
+        byte[] name = new byte[Math.max(length, 0)];
+        record.get(name);
+        return new Entry(number, new String(name, StandardCharsets.UTF_8), timestamp, seed, ticks, score, level, lines);
+    }
+
+    /**
+     * Gets the best games, highest score first; ties in the order they were played.
+     *
+     * @param n The number of games wanted; at most TOP_CAPACITY are kept.
+     * @return Up to n games.
+     * @throws IOException If the log cannot be read.
+     */
+    public synchronized List<Entry> getTop(int n) throws IOException {
+        int count = Math.min(Math.max(n, 0), index.getInt(H_TOP_COUNT));
+        List<Entry> top = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            top.add(get(index.getInt(TOP_OFFSET + i * TOP_ENTRY_BYTES + 4)));
+        }
+        return top;
+    }
+
+    /**
+     * Looks up the totals of a player.
+     *
+     * @param player The player's name.
+     * @return The player's statistics, or null if the player has not finished a game.
+     */
+    public synchronized PlayerStats getPlayer(String player) {
+        byte[] name = encodeName(player);
+        int slot = findSlot(name);
+        if (slot < 0) {
+            return null;
+        }
+        int base = PLAYERS_OFFSET + slot * PLAYER_BYTES;
+        if (index.get(base) == 0) {
+            return null;
+        }
+        return new PlayerStats(new String(name, StandardCharsets.UTF_8), index.getInt(base + P_GAMES),
+                index.getInt(base + P_BEST_SCORE), index.getInt(base + P_BEST_LEVEL),
+                index.getLong(base + P_TOTAL_SCORE), index.getLong(base + P_TOTAL_LINES),
+                index.getInt(base + P_LAST_RECORD));
+    }
+
+    /**
+     * Gets the number of games recorded.
+     *
+     * @return The game count.
+     */
+    public synchronized int getGameCount() {
+        return index.getInt(H_RECORDS);
+    }
+
+    /**
+     * Gets the number of players with statistics.
+     *
+     * @return The player count.
+     */
+    public synchronized int getPlayerCount() {
+        return index.getInt(H_PLAYERS);
+    }
+
+    /**
+     * Writes the index back to its file and closes the store.
+     *
+     * @throws IOException If the files cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        index.force();
+        log.close();
+        indexChannel.close();
+    }
+
+    /**
+     * Entry point of the scores mode: prints the leaderboard, and a player's totals if a name
+     * is given.
+     *
+     * @param args The command-line arguments: "--scores" and optionally a player's name.
+     */
+    public static void run(String[] args) {
+        try (ScoreStore store = new ScoreStore(Engine.SCORE_DIRECTORY)) {
+            System.out.println(store.getGameCount() + " games by " + store.getPlayerCount() + " players");
+            int rank = 1;
+            for (Entry entry : store.getTop(10)) {
+                System.out.printf("%3d. %-24s %8d  level %d%n", rank++, entry.getPlayer(), entry.getScore(), entry.getLevel());
+            }
+            if (args.length > 1) {
+                PlayerStats stats = store.getPlayer(args[1]);
+                if (stats == null) {
+                    System.out.println("No games by " + args[1]);
+                } else {
+                    System.out.printf("%s: %d games, best %d, average %.1f, best level %d, %d lines%n", stats.getName(),
+                            stats.getGames(), stats.getBestScore(), stats.getAverageScore(), stats.getBestLevel(),
+                            stats.getTotalLines());
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Cannot open the score store: " + e.getMessage());
+        }
+    }
+}
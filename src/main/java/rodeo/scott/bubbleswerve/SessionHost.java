@@ -0,0 +1,178 @@
+package rodeo.scott.bubbleswerve;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts many independent games in one JVM for the server.
+ * Every GameSession steps its own headless game at the loop's fixed rate as a task on one
+ * shared scheduler pool, sized to the processors, rather than on a thread per game; paused
+ * and finished sessions park their task, so only games in play use scheduler time and
+ * tens of thousands of mostly idle sessions need no more threads than cores.
+ *
+ * @author https://scott.rodeo/
+ */
+public class SessionHost {
+
+    private final ScheduledThreadPoolExecutor scheduler;                      // Runs the step tasks of every session.
+    private final Map<Long, GameSession> sessions = new ConcurrentHashMap<>(); // Open sessions by id.
+    private final AtomicLong nextId = new AtomicLong(1);                      // Identifier of the next session.
+
+    /**
+     * Constructs a host with one scheduler thread per available processor.
+     */
+    public SessionHost() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a host with the given number of scheduler threads.
+     *
+     * @param threads The number of threads stepping the sessions.
+     */
+    public SessionHost(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        scheduler = new ScheduledThreadPoolExecutor(threads, r -> {
+            Thread thread = new Thread(r, "bubbleswerve-session");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true); // Parked sessions leave no dead tasks in the queue.
+    }
+
+    /**
+     * Opens a session with a game seeded from the clock.
+     *
+     * @return The new session, already running.
+     */
+    public GameSession open() {
+        return open(new Game(GameRandom.fromClock()));
+    }
+
+    /**
+     * Opens a session with a reproducible game.
+     *
+     * @param seed The seed of the game's random source.
+     * @return The new session, already running.
+     */
+    public GameSession open(long seed) {
+        return open(new Game(seed));
+    }
+
+    // Registers a new game and starts stepping it
+    private GameSession open(Game game) {
+        if (scheduler.isShutdown()) {
+            throw new IllegalStateException("Session host is shut down");
+        }
+        game.setLogging(false); // Thousands of games would drown the console.
+        GameSession session = new GameSession(nextId.getAndIncrement(), game, scheduler);
+        sessions.put(session.getId(), session);
+        session.wake();
+        return session;
+    }
+
+    /**
+     * Finds an open session.
+     *
+     * @param id The session id.
+     * @return The session, or null if there is none with this id.
+     */
+    public GameSession get(long id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * Closes a session and stops its game.
+     *
+     * @param id The session id.
+     */
+    public void close(long id) {
+        GameSession session = sessions.remove(id);
+        if (session != null) {
+            session.close();
+        }
+    }
+
+    /**
+     * Gets the open sessions.
+     *
+     * @return A live view of the sessions.
+     */
+    public Collection<GameSession> getSessions() {
+        return sessions.values();
+    }
+
+    /**
+     * Gets the number of open sessions.
+     *
+     * @return The session count.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Gets the number of sessions whose game is being stepped.
+     *
+     * @return The count of sessions that are not parked.
+     */
+    public int getActiveCount() {
+        int active = 0;
+        for (GameSession session : sessions.values()) {
+            if (!session.isParked()) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Estimates the heap held by all open sessions.
+     *
+     * @return The approximate size in bytes.
+     */
+    public long getMemoryEstimate() {
+        long bytes = 0;
+        for (GameSession session : sessions.values()) {
+            bytes += session.getMemoryEstimate();
+        }
+        return bytes;
+    }
+
+    /**
+     * Prints the session counts, memory and step latency of the host to the console.
+     */
+    public void printStats() {
+        int count = 0;
+        long lateness = 0;
+        long maxLateness = 0;
+        long stepNanos = 0;
+        long maxStepNanos = 0;
+        for (GameSession session : sessions.values()) {
+            count++;
+            lateness += session.getAverageLatenessNanos();
+            maxLateness = Math.max(maxLateness, session.getMaxLatenessNanos());
+            stepNanos += session.getAverageStepNanos();
+            maxStepNanos = Math.max(maxStepNanos, session.getMaxStepNanos());
+        }
+        System.out.printf("Sessions: %d open, %d active, ~%d KiB%n", count, getActiveCount(), getMemoryEstimate() / 1024);
+        if (count > 0) {
+            System.out.printf("Step: avg %d us, max %d us; lateness: avg %d us, max %d us%n",
+                    stepNanos / count / 1000, maxStepNanos / 1000, lateness / count / 1000, maxLateness / 1000);
+        }
+    }
+
+    /**
+     * Closes every session and stops the scheduler threads.
+     */
+    public void shutdown() {
+        for (Long id : sessions.keySet()) {
+            close(id);
+        }
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,184 @@
+package rodeo.scott.bubbleswerve;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of the Bubbloid shapes that can be dealt in a game.
+ * Shape definitions are read from a text resource, validated, and compiled into immutable
+ * BubbloidShape instances that every piece of the same shape shares. Adding a shape only
+ * takes a new line in the resource file.
+ *
+ * See shapes.txt for the file format.
+ *
+ * @author https://scott.rodeo/
+ */
+public final class ShapeRegistry {
+
+    public static final String DEFAULT_RESOURCE = "shapes.txt"; // Built-in shape pack.
+    private static final int MAX_OFFSET = 8; // Largest distance of a bubble from the spawn position.
+
+    private static ShapeRegistry defaultRegistry; // Lazily loaded built-in registry.
+
+    private final List<BubbloidShape> shapes;          // Shapes in the order they were defined.
+    private final Map<String, BubbloidShape> byName;   // Shapes by name.
+
+    private ShapeRegistry(List<BubbloidShape> shapes) {
+        this.shapes = Collections.unmodifiableList(shapes);
+        this.byName = new HashMap<>();
+        for (BubbloidShape shape : shapes) {
+            byName.put(shape.getName(), shape);
+        }
+    }
+
+    /**
+     * Gets the registry of built-in shapes, loading it on first use.
+     *
+     * @return The default shape registry.
+     */
+    public static synchronized ShapeRegistry getDefault() {
+        if (defaultRegistry == null) {
+            try (InputStream in = ShapeRegistry.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+                if (in == null) {
+                    throw new IllegalStateException("Missing shape resource: " + DEFAULT_RESOURCE);
+                }
+                defaultRegistry = load(in, DEFAULT_RESOURCE);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to read " + DEFAULT_RESOURCE, e);
+            }
+        }
+        return defaultRegistry;
+    }
+
+    /**
+     * Reads, validates and compiles a set of shape definitions.
+     *
+     * @param in     The stream to read the definitions from.
+     * @param source Name of the source, used in error messages.
+     * @return A registry holding the compiled shapes.
+     * @throws IOException If the stream cannot be read.
+     * @throws IllegalArgumentException If a definition is invalid.
+     */
+    public static ShapeRegistry load(InputStream in, String source) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<BubbloidShape> shapes = new ArrayList<>();
+        Map<String, Integer> seen = new HashMap<>();
+
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue; // Skip blank lines and comments.
+            }
+
+            String[] tokens = line.split("\\s+");
+            String where = source + ":" + lineNumber + ": ";
+            if (tokens.length < 3) {
+                throw new IllegalArgumentException(where + "expected a name, a color and at least one bubble");
+            }
+
+            // Name.
+            String name = tokens[0];
+            if (!name.matches("[A-Za-z0-9_]+")) {
+                throw new IllegalArgumentException(where + "invalid shape name '" + name + "'");
+            }
+            if (seen.containsKey(name)) {
+                throw new IllegalArgumentException(where + "shape '" + name + "' is already defined on line " + seen.get(name));
+            }
+
+            // Color.
+            int color = parseInt(tokens[1], where);
+            if (color <= Grid.EMPTY || color >= Grid.COLORS) {
+                throw new IllegalArgumentException(where + "color " + color + " is not a palette index from 1 to " + (Grid.COLORS - 1));
+            }
+
+            // Bubbles.
+            int size = tokens.length - 2;
+            int[] rowOffset = new int[size];
+            int[] colOffset = new int[size];
+            for (int i = 0; i < size; i++) {
+                String[] pair = tokens[i + 2].split(",");
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException(where + "expected row,col but found '" + tokens[i + 2] + "'");
+                }
+                rowOffset[i] = parseInt(pair[0], where);
+                colOffset[i] = parseInt(pair[1], where);
+                if (Math.abs(rowOffset[i]) > MAX_OFFSET || Math.abs(colOffset[i]) > MAX_OFFSET) {
+                    throw new IllegalArgumentException(where + "bubble " + tokens[i + 2] + " is more than " + MAX_OFFSET + " cells from the spawn position");
+                }
+                for (int j = 0; j < i; j++) {
+                    if (rowOffset[j] == rowOffset[i] && colOffset[j] == colOffset[i]) {
+                        throw new IllegalArgumentException(where + "bubble " + tokens[i + 2] + " is listed twice");
+                    }
+                }
+            }
+
+            seen.put(name, lineNumber);
+            shapes.add(BubbloidShape.compile(shapes.size(), name, color, rowOffset, colOffset));
+        }
+
+        if (shapes.isEmpty()) {
+            throw new IllegalArgumentException(source + ": no shapes defined");
+        }
+        return new ShapeRegistry(shapes);
+    }
+
+    private static int parseInt(String token, String where) {
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(where + "'" + token + "' is not a number");
+        }
+    }
+
+    /**
+     * Gets the number of shapes in the registry.
+     *
+     * @return The shape count.
+     */
+    public int size() {
+        return shapes.size();
+    }
+
+    /**
+     * Gets a shape by its id.
+     *
+     * @param id Position of the shape in the registry.
+     * @return The shape.
+     */
+    public BubbloidShape get(int id) {
+        return shapes.get(id);
+    }
+
+    /**
+     * Gets a shape by its name.
+     *
+     * @param name Name of the shape.
+     * @return The shape.
+     */
+    public BubbloidShape get(String name) {
+        BubbloidShape shape = byName.get(name);
+        if (shape == null) {
+            throw new IllegalArgumentException("Unknown shape: " + name);
+        }
+        return shape;
+    }
+
+    /**
+     * Gets all shapes in the order they were defined.
+     *
+     * @return An unmodifiable list of the shapes.
+     */
+    public List<BubbloidShape> getShapes() {
+        return shapes;
+    }
+}
@@ -0,0 +1,159 @@
+package rodeo.scott.bubbleswerve;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of position scores, keyed by Zobrist hash, for searches that reach the same
+ * position along different move orders. The table holds a fixed number of slots and never
+ * grows: a position maps to one slot by its hash, and a new position takes the slot over
+ * from the one stored there; only a score of the same position from a deeper search is kept.
+ *
+ * The table can be shared by searches running on several threads. The slots are guarded by a
+ * fixed set of locks, each lock covering every slot whose index falls on its stripe, so two
+ * threads only wait on each other when they touch the same stripe at the same time. Entries
+ * are stored in flat arrays rather than objects, so a full table holds no garbage.
+ *
+ * @author https://scott.rodeo/
+ */
+public class TranspositionTable {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;     // Slots of a default table.
+    public static final int MAX_CAPACITY = 1 << 26;         // Largest table: 1.25 GiB of slots.
+    private static final int STRIPES = 64;                  // Locks guarding the slots.
+    private static final int EMPTY = -1;                    // Depth of a slot that holds nothing.
+
+    private final long[] keys;                              // Hash of the position in each slot.
+    private final long[] scores;                            // Score of each slot, as double bits.
+    private final int[] depths;                             // Search depth of each score, EMPTY if unused.
+    private final int mask;                                 // Slot count minus one.
+    private final Object[] locks;                           // Lock of each stripe.
+    private final LongAdder hits = new LongAdder();         // Lookups answered from the table.
+    private final LongAdder misses = new LongAdder();       // Lookups that found nothing usable.
+
+    /**
+     * Constructs a table with the default capacity.
+     */
+    public TranspositionTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a table.
+     *
+     * @param capacity The number of slots, rounded up to a power of two.
+     */
+    public TranspositionTable(int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Table capacity must be between 1 and " + MAX_CAPACITY + ": " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        keys = new long[size];
+        scores = new long[size];
+        depths = new int[size];
+        Arrays.fill(depths, EMPTY);
+        mask = size - 1;
+        locks = new Object[Math.min(STRIPES, size)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    // Slot of a hash, with the high half folded into the low bits
+    private int indexOf(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    /**
+     * Looks up the score of a position.
+     *
+     * @param key   The position's hash.
+     * @param depth The search depth the score must at least come from.
+     * @return The stored score, or NaN if the position is not stored at that depth.
+     */
+    public double get(long key, int depth) {
+        int index = indexOf(key);
+        synchronized (locks[index & (locks.length - 1)]) {
+            if (depths[index] >= depth && keys[index] == key) {
+                hits.increment();
+                return Double.longBitsToDouble(scores[index]);
+            }
+        }
+        misses.increment();
+        return Double.NaN;
+    }
+
+    /**
+     * Stores the score of a position, replacing whatever its slot held, unless the slot holds
+     * the same position from a deeper search.
+     *
+     * @param key   The position's hash.
+     * @param depth The depth of the search that produced the score, not negative.
+     * @param score The score.
+     */
+    public void put(long key, int depth, double score) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Search depth cannot be negative: " + depth);
+        }
+        int index = indexOf(key);
+        synchronized (locks[index & (locks.length - 1)]) {
+            if (keys[index] == key && depths[index] > depth) {
+                return;
+            }
+            keys[index] = key;
+            scores[index] = Double.doubleToRawLongBits(score);
+            depths[index] = depth;
+        }
+    }
+
+    /**
+     * Empties the table, for example before a search on an unrelated board.
+     */
+    public void clear() {
+        for (int stripe = 0; stripe < locks.length; stripe++) {
+            synchronized (locks[stripe]) {
+                for (int index = stripe; index <= mask; index += locks.length) {
+                    depths[index] = EMPTY;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of slots.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Gets the number of lookups answered from the table.
+     *
+     * @return The hit count.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups that found nothing usable.
+     *
+     * @return The miss count.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Estimates the heap memory the table takes.
+     *
+     * @return The approximate size in bytes.
+     */
+    public long getMemoryEstimate() {
+        return (long) getCapacity() * (Long.BYTES + Long.BYTES + Integer.BYTES);
+    }
+}
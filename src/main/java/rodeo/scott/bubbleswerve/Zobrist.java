@@ -0,0 +1,70 @@
+package rodeo.scott.bubbleswerve;
+
+/**
+ * Random keys for Zobrist hashing of game positions.
+ * A position is hashed as the exclusive or of one key per occupied cell, one key for the
+ * orientation of the board and one key for the active piece, so a hash is updated by xoring
+ * out the keys of what changed and xoring in the new ones. Cells are keyed by their place in
+ * the grid's fixed physical layout and by occupancy only, as the colour of a bubble does not
+ * matter to play.
+ *
+ * The keys come from a fixed seed, so hashes are the same in every run and can be stored.
+ *
+ * @author https://scott.rodeo/
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x5A0B215AL;               // Seed of the key tables.
+    private static final long PIECE_SALT = 0x7069656365L;       // Keeps piece keys apart from the tables.
+    private static final long[] CELL_KEYS = new long[Grid.MAX_SIZE * Grid.MAX_SIZE];
+    private static final long[] ROTATION_KEYS = new long[4];
+
+    static {
+        GameRandom random = new GameRandom(SEED);
+        for (int i = 0; i < CELL_KEYS.length; i++) {
+            CELL_KEYS[i] = random.nextLong();
+        }
+        for (int i = 0; i < ROTATION_KEYS.length; i++) {
+            ROTATION_KEYS[i] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Gets the key of an occupied cell.
+     *
+     * @param pr The physical row of the cell.
+     * @param pc The physical column of the cell.
+     * @return The cell's key.
+     */
+    public static long cell(int pr, int pc) {
+        return CELL_KEYS[pr * Grid.MAX_SIZE + pc];
+    }
+
+    /**
+     * Gets the key of a view rotation of the board.
+     *
+     * @param rotation The number of clockwise quarter turns, 0 to 3.
+     * @return The rotation's key.
+     */
+    public static long rotation(int rotation) {
+        return ROTATION_KEYS[rotation & 3];
+    }
+
+    /**
+     * Gets the key of an active piece. Pieces can stand anywhere, partly off the board too, so
+     * their keys are derived from the packed shape, rotation state and pivot instead of a table.
+     *
+     * @param shape    The shape's id.
+     * @param rotation The rotation state, 0 to 3.
+     * @param row      The pivot row, in view coordinates.
+     * @param col      The pivot column, in view coordinates.
+     * @return The piece's key.
+     */
+    public static long piece(int shape, int rotation, int row, int col) {
+        long packed = (long) shape << 34 | (long) (rotation & 3) << 32 | (row & 0xFFFFL) << 16 | (col & 0xFFFFL);
+        return GameRandom.mix64(PIECE_SALT ^ packed);
+    }
+}